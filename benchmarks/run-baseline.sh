@@ -0,0 +1,25 @@
+#!/usr/bin/env sh
+# 运行基准测试并把 JMH 的 JSON 结果保存到 baselines/<名称>.json，同时记录运行环境。
+# 用法：./run-baseline.sh <名称> [JMH 参数...]
+# 例如：./run-baseline.sh main -p leafCount=1000,100000 ProofBenchmark
+set -e
+
+if [ $# -lt 1 ]; then
+  echo "usage: $0 <name> [jmh options...]" >&2
+  exit 1
+fi
+name=$1
+shift
+
+cd "$(dirname "$0")"
+(cd .. && mvn -B -q -Pbenchmarks package -DskipTests)
+
+mkdir -p baselines
+{
+  echo "commit: $(git rev-parse HEAD)"
+  echo "date: $(date -u +%Y-%m-%dT%H:%M:%SZ)"
+  echo "cpus: $(getconf _NPROCESSORS_ONLN)"
+  java -version 2>&1
+} > "baselines/$name.env"
+
+java -jar target/benchmarks.jar -prof gc -rf json -rff "baselines/$name.json" "$@"
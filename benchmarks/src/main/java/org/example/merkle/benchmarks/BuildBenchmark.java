@@ -0,0 +1,38 @@
+package org.example.merkle.benchmarks;
+
+import org.example.merkle.MerkleTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BuildBenchmark 测量整树构建：newTree 每次新建树，rebuildTree 在已有树上交替替换两组内容
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class BuildBenchmark {
+    private boolean other;
+
+    @Benchmark
+    public MerkleTree newTree(TreeState state) throws Exception {
+        return MerkleTree.newTree(state.contents, state.hashStrategy, state.sort);
+    }
+
+    @Benchmark
+    public MerkleTree rebuildTree(TreeState state) throws Exception {
+        other = !other;
+        return state.tree.rebuildTree(other ? state.otherContents : state.contents);
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.merkle.benchmarks;
+
+import org.example.merkle.MerklePathResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProofBenchmark 测量单个叶子的查询：随机选取叶子生成默克尔路径，或按内容校验其到根的路径
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class ProofBenchmark {
+
+    @Benchmark
+    public MerklePathResult getMerklePath(TreeState state) {
+        return state.tree.getMerklePath(ThreadLocalRandom.current().nextInt(state.leafCount));
+    }
+
+    @Benchmark
+    public boolean verifyContent(TreeState state) throws Exception {
+        return state.tree.verifyContent(state.contents.get(ThreadLocalRandom.current().nextInt(state.leafCount)));
+    }
+}
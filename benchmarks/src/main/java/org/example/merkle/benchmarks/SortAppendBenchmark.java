@@ -0,0 +1,53 @@
+package org.example.merkle.benchmarks;
+
+import org.example.merkle.MerkleTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SortAppendBenchmark 测量两个节点哈希的拼接，与叶子数无关，因此只用一棵两个叶子的树
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortAppendBenchmark {
+    @Param({"false", "true"})
+    public boolean sort;
+
+    @Param({"SM3", "SHA256", "Keccak256"})
+    public String strategy;
+
+    private MerkleTree tree;
+    private byte[] a;
+    private byte[] b;
+
+    @Setup
+    public void setUp() throws Exception {
+        tree = MerkleTree.newTree(Strategies.contents(strategy, 2, "content-"), Strategies.strategy(strategy), sort);
+        a = tree.getCompactTree().getHash(0, 1);
+        b = tree.getCompactTree().getHash(0, 0);
+        if (Arrays.equals(a, b)) {
+            throw new IllegalStateException("Leaf hashes must differ");
+        }
+    }
+
+    @Benchmark
+    public byte[] sortAppend() {
+        return tree.sortAppend(sort, a, b);
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.merkle.benchmarks;
+
+import org.example.merkle.Content;
+import org.example.merkle.HashStrategy;
+import org.example.merkle.keccak.Keccak256Content;
+import org.example.merkle.keccak.Keccak256Strategy;
+import org.example.merkle.sha256.SHA256Content;
+import org.example.merkle.sha256.SHA256Strategy;
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strategies 按名称创建基准测试使用的哈希策略与对应的叶子内容，新增 HashStrategy 实现时在这里登记，
+ * 并加入各基准的 strategy 参数
+ */
+final class Strategies {
+    private Strategies() {
+    }
+
+    static HashStrategy strategy(String name) {
+        switch (name) {
+            case "SM3":
+                return SM3Strategy.newInstance();
+            case "SHA256":
+                return SHA256Strategy.newInstance();
+            case "Keccak256":
+                return Keccak256Strategy.newInstance();
+            default:
+                throw new IllegalArgumentException("Unknown hash strategy: " + name);
+        }
+    }
+
+    static Content content(String name, String value) {
+        switch (name) {
+            case "SM3":
+                return new SM3Content(value);
+            case "SHA256":
+                return new SHA256Content(value);
+            case "Keccak256":
+                return new Keccak256Content(value);
+            default:
+                throw new IllegalArgumentException("Unknown hash strategy: " + name);
+        }
+    }
+
+    static List<Content> contents(String name, int size, String prefix) {
+        List<Content> contents = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            contents.add(content(name, prefix + i));
+        }
+        return contents;
+    }
+}
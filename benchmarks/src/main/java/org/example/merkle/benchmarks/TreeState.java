@@ -0,0 +1,40 @@
+package org.example.merkle.benchmarks;
+
+import org.example.merkle.Content;
+import org.example.merkle.HashStrategy;
+import org.example.merkle.MerkleTree;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * TreeState 为每组参数构建一次叶子内容与默克尔树，在同一组参数的所有迭代间共享
+ */
+@State(Scope.Benchmark)
+public class TreeState {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int leafCount;
+
+    @Param({"false", "true"})
+    public boolean sort;
+
+    @Param({"SM3", "SHA256", "Keccak256"})
+    public String strategy;
+
+    public HashStrategy hashStrategy;
+    public List<Content> contents;
+    public List<Content> otherContents;
+    public MerkleTree tree;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        hashStrategy = Strategies.strategy(strategy);
+        contents = Strategies.contents(strategy, leafCount, "content-");
+        otherContents = Strategies.contents(strategy, leafCount, "other-");
+        tree = MerkleTree.newTree(contents, hashStrategy, sort);
+    }
+}
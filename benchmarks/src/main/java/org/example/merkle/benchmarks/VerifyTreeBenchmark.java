@@ -0,0 +1,33 @@
+package org.example.merkle.benchmarks;
+
+import org.example.merkle.TreeVerifyResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VerifyTreeBenchmark 测量整树校验：verifyTree 重新计算所有叶子内容，verifyLevels 信任已缓存的叶子哈希
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class VerifyTreeBenchmark {
+
+    @Benchmark
+    public boolean verifyTree(TreeState state) throws Exception {
+        return state.tree.verifyTree();
+    }
+
+    @Benchmark
+    public TreeVerifyResult verifyLevels(TreeState state) throws Exception {
+        return state.tree.verifyTree(true);
+    }
+}
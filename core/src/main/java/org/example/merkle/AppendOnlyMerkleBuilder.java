@@ -0,0 +1,127 @@
+package org.example.merkle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AppendOnlyMerkleBuilder 以追加方式逐条提交记录，只保留右边缘的"前沿"子树根（每层至多一个，共 O(log n) 个哈希），
+ * 不保存叶子。任意时刻的 currentRoot 与对同一序列调用 MerkleTree.newTree 得到的根相同，包括奇数节点重复的规则。
+ */
+public class AppendOnlyMerkleBuilder {
+    private final HashStrategy hashStrategy;
+    private final boolean sort;
+    private final Hash hash;
+    // frontier.get(k) 为覆盖 2^k 个叶子、尚未与左兄弟合并的完整子树根，不存在时为 null
+    private final List<byte[]> frontier = new ArrayList<>();
+    private long size;
+    private int leafWidth = -1;
+
+    private AppendOnlyMerkleBuilder(HashStrategy hashStrategy, boolean sort) throws Exception {
+        this.hashStrategy = hashStrategy;
+        this.sort = sort;
+        this.hash = hashStrategy.createHash();
+    }
+
+    public static AppendOnlyMerkleBuilder newBuilder(HashStrategy hashStrategy, boolean sort) throws Exception {
+        return new AppendOnlyMerkleBuilder(hashStrategy, sort);
+    }
+
+    /**
+     * append 追加一条记录
+     *
+     * @param content
+     * @return
+     * @throws Exception
+     */
+    public AppendOnlyMerkleBuilder append(Content content) throws Exception {
+        return appendHash(content.calculateHash());
+    }
+
+    /**
+     * appendHash 追加一个已计算好的叶子哈希，所有叶子哈希长度必须一致
+     *
+     * @param leafHash
+     * @return
+     * @throws Exception
+     */
+    public AppendOnlyMerkleBuilder appendHash(byte[] leafHash) throws Exception {
+        if (leafWidth < 0) {
+            leafWidth = leafHash.length;
+        } else if (leafHash.length != leafWidth) {
+            throw new IllegalArgumentException("Leaf hash has length " + leafHash.length + ", expected " + leafWidth);
+        }
+
+        // 与二进制加一相同：低位连续的完整子树依次与新节点合并
+        byte[] node = leafHash;
+        int level = 0;
+        while (level < frontier.size() && frontier.get(level) != null) {
+            node = hashStrategy.combine(hash, sort, frontier.get(level), node);
+            frontier.set(level, null);
+            level++;
+        }
+        if (level == frontier.size()) {
+            frontier.add(node);
+        } else {
+            frontier.set(level, node);
+        }
+        size++;
+        return this;
+    }
+
+    /**
+     * currentRoot 返回当前已追加序列的默克尔根，不改变构建器状态
+     *
+     * @return
+     * @throws Exception
+     */
+    public byte[] currentRoot() throws Exception {
+        if (size == 0) {
+            throw new IllegalStateException("Cannot construct tree with no content");
+        }
+        // carry 为右侧不完整部分在第 k 层的节点；某层节点数为奇数时末尾节点与自身配对
+        byte[] carry = null;
+        for (int level = 0; ; level++) {
+            if (level > 0 && size <= (1L << level)) {
+                return carry != null ? carry : frontier.get(level);
+            }
+            byte[] complete = (size >> level & 1) == 1 ? frontier.get(level) : null;
+            if (complete != null) {
+                carry = hashStrategy.combine(hash, sort, complete, carry != null ? carry : complete);
+            } else if (carry != null) {
+                carry = hashStrategy.combine(hash, sort, carry, carry);
+            }
+        }
+    }
+
+    /**
+     * size 返回已追加的叶子数
+     *
+     * @return
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * frontierSize 返回当前保留的前沿哈希数
+     *
+     * @return
+     */
+    public int frontierSize() {
+        int count = 0;
+        for (byte[] node : frontier) {
+            if (node != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public HashStrategy getHashStrategy() {
+        return hashStrategy;
+    }
+
+    public boolean isSort() {
+        return sort;
+    }
+}
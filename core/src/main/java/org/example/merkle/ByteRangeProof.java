@@ -0,0 +1,114 @@
+package org.example.merkle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ByteRangeProof 证明文件中 [offset, offset + length) 的字节被包含在 ChunkedFileTree 的根中。
+ * prefix 与 suffix 是区间首尾分块中落在区间以外的字节，验证方用它们与待证明的字节重新计算所覆盖分块的哈希，
+ * 再用 proof 与 proofFlags（MerkleMultiProof 的格式）重建根。除区间本身外，证明大小不超过两个分块加 O(log n) 个哈希
+ */
+public class ByteRangeProof {
+    private final long offset;
+    private final int length;
+    private final int chunkSize;
+    private final byte[] prefix;
+    private final byte[] suffix;
+    private final List<byte[]> proof;
+    private final List<Boolean> proofFlags;
+
+    public ByteRangeProof(long offset, int length, int chunkSize, byte[] prefix, byte[] suffix, List<byte[]> proof,
+                          List<Boolean> proofFlags) {
+        this.offset = offset;
+        this.length = length;
+        this.chunkSize = chunkSize;
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.proof = proof;
+        this.proofFlags = proofFlags;
+    }
+
+    /**
+     * verify 校验 data 是文件中 [offset, offset + length) 的内容且被包含在 root 中
+     *
+     * @param root
+     * @param data
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public boolean verify(byte[] root, byte[] data, HashStrategy hashStrategy, boolean sort) throws Exception {
+        if (length <= 0 || data.length != length || chunkSize <= 0 || offset < 0 || prefix.length != offset % chunkSize) {
+            return false;
+        }
+        long spanLength = (long) prefix.length + length + suffix.length;
+        // 除最后一块外都必须是完整分块，最后一块只能在文件末尾变短
+        if (suffix.length >= chunkSize) {
+            return false;
+        }
+        int chunks = (int) ((spanLength + chunkSize - 1) / chunkSize);
+        int first = (int) (offset / chunkSize);
+        int[] indices = new int[chunks];
+        List<byte[]> leaves = new ArrayList<>(chunks);
+        Hash hash = hashStrategy.createHash();
+        for (int i = 0; i < chunks; i++) {
+            long start = (long) i * chunkSize;
+            long end = Math.min(start + chunkSize, spanLength);
+            writeSpan(hash, data, start, end);
+            byte[] leaf = new byte[hash.size()];
+            hash.doFinal(leaf, 0);
+            indices[i] = first + i;
+            leaves.add(leaf);
+        }
+        return new MerkleMultiProof(indices, leaves, proof, proofFlags).verify(root, hashStrategy, sort);
+    }
+
+    /**
+     * writeSpan 把 prefix | data | suffix 拼接后 [start, end) 的字节写入 hash，不实际拼接
+     */
+    private void writeSpan(Hash hash, byte[] data, long start, long end) throws Exception {
+        long dataStart = prefix.length;
+        long suffixStart = dataStart + data.length;
+        if (start < dataStart) {
+            hash.write(prefix, (int) start, (int) (Math.min(end, dataStart) - start));
+        }
+        if (end > dataStart && start < suffixStart) {
+            int from = (int) (Math.max(start, dataStart) - dataStart);
+            int to = (int) (Math.min(end, suffixStart) - dataStart);
+            hash.write(data, from, to - from);
+        }
+        if (end > suffixStart) {
+            int from = (int) (Math.max(start, suffixStart) - suffixStart);
+            hash.write(suffix, from, (int) (end - suffixStart) - from);
+        }
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public byte[] getPrefix() {
+        return prefix;
+    }
+
+    public byte[] getSuffix() {
+        return suffix;
+    }
+
+    public List<byte[]> getProof() {
+        return proof;
+    }
+
+    public List<Boolean> getProofFlags() {
+        return proofFlags;
+    }
+}
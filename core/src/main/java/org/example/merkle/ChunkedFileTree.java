@@ -0,0 +1,235 @@
+package org.example.merkle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ChunkedFileTree 将文件只读映射到内存并按定长分块，每个分块作为一个叶子（最后一块可以较短）。
+ * 分块哈希直接从映射缓冲区计算，可在 ForkJoinPool 上并行；proveRange 证明文件任意字节区间被包含在根中，
+ * 证明由区间首尾分块中区间以外的字节与 O(log n) 个兄弟哈希组成。使用完毕后需 close
+ */
+public class ChunkedFileTree implements Closeable {
+    // 每段映射的最大字节数，按分块大小向下取整
+    private static final long MAX_SEGMENT = 1L << 30;
+    // 并行哈希时每个任务至少处理的字节数
+    private static final int MIN_TASK_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int chunkSize;
+    private final int chunksPerSegment;
+    private final long fileSize;
+    private final int chunkCount;
+    private final HashStrategy hashStrategy;
+    private CompactTree tree;
+
+    private ChunkedFileTree(FileChannel channel, MappedByteBuffer[] segments, int chunkSize, int chunksPerSegment,
+                            long fileSize, int chunkCount, HashStrategy hashStrategy) {
+        this.channel = channel;
+        this.segments = segments;
+        this.chunkSize = chunkSize;
+        this.chunksPerSegment = chunksPerSegment;
+        this.fileSize = fileSize;
+        this.chunkCount = chunkCount;
+        this.hashStrategy = hashStrategy;
+    }
+
+    /**
+     * newTree 映射文件并顺序计算所有分块哈希
+     *
+     * @param file
+     * @param chunkSize
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public static ChunkedFileTree newTree(Path file, int chunkSize, HashStrategy hashStrategy, boolean sort)
+            throws Exception {
+        return newTree(file, chunkSize, hashStrategy, sort, null);
+    }
+
+    /**
+     * newTree 映射文件并在 pool 上并行计算分块哈希与各层节点
+     *
+     * @param file
+     * @param chunkSize 分块字节数
+     * @param hashStrategy
+     * @param sort
+     * @param pool 为 null 时顺序计算
+     * @return
+     * @throws Exception
+     */
+    public static ChunkedFileTree newTree(Path file, int chunkSize, HashStrategy hashStrategy, boolean sort,
+                                          ForkJoinPool pool) throws Exception {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            if (fileSize == 0) {
+                throw new IllegalArgumentException("Cannot construct tree with no content");
+            }
+            long chunkCount = (fileSize + chunkSize - 1) / chunkSize;
+            if (chunkCount > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many chunks: " + chunkCount);
+            }
+            int chunksPerSegment = (int) Math.max(1, MAX_SEGMENT / chunkSize);
+            long segmentSize = (long) chunksPerSegment * chunkSize;
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((fileSize + segmentSize - 1) / segmentSize)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(segmentSize, fileSize - position));
+            }
+            ChunkedFileTree chunkedTree = new ChunkedFileTree(channel, segments, chunkSize, chunksPerSegment,
+                    fileSize, (int) chunkCount, hashStrategy);
+            chunkedTree.build(sort, pool);
+            return chunkedTree;
+        } catch (Exception e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void build(boolean sort, ForkJoinPool pool) throws Exception {
+        int width = hashStrategy.createHash().size();
+        if ((chunkCount + 1L) / 2 * 2 * width > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many chunks for an in-heap tree: " + chunkCount);
+        }
+        byte[] slab = new byte[(chunkCount + 1) / 2 * 2 * width];
+        if (pool == null) {
+            hashChunks(hashStrategy.localHash(), slab, width, 0, chunkCount);
+        } else {
+            ParallelHashing.forEachRange(pool, 0, chunkCount, Math.max(1, MIN_TASK_BYTES / chunkSize),
+                    (from, to) -> hashChunks(hashStrategy.localHash(), slab, width, from, to));
+        }
+        tree = CompactTree.build(slab, chunkCount, width, hashStrategy, sort, pool,
+                MerkleTree.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    private void hashChunks(Hash hash, byte[] slab, int width, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            hash.write(chunk(i));
+            hash.doFinal(slab, i * width);
+        }
+    }
+
+    /**
+     * chunk 返回第 index 个分块在映射缓冲区上的视图
+     */
+    private ByteBuffer chunk(int index) {
+        ByteBuffer segment = segments[index / chunksPerSegment].duplicate();
+        int position = (index % chunksPerSegment) * chunkSize;
+        segment.limit((int) Math.min((long) position + chunkSize, segment.capacity()));
+        segment.position(position);
+        return segment;
+    }
+
+    /**
+     * getChunk 返回第 index 个分块对应的叶子内容，数据仍指向映射缓冲区
+     *
+     * @param index
+     * @return
+     */
+    public FileChunkContent getChunk(int index) {
+        checkChunkIndex(index);
+        return new FileChunkContent(chunk(index), hashStrategy);
+    }
+
+    /**
+     * readRange 读取文件中从 offset 开始的 length 个字节
+     *
+     * @param offset
+     * @param length
+     * @return
+     */
+    public byte[] readRange(long offset, int length) {
+        checkRange(offset, length);
+        byte[] bytes = new byte[length];
+        long segmentSize = (long) chunksPerSegment * chunkSize;
+        int copied = 0;
+        while (copied < length) {
+            long position = offset + copied;
+            ByteBuffer segment = segments[(int) (position / segmentSize)].duplicate();
+            segment.position((int) (position % segmentSize));
+            int len = Math.min(length - copied, segment.remaining());
+            segment.get(bytes, copied, len);
+            copied += len;
+        }
+        return bytes;
+    }
+
+    /**
+     * proveRange 证明文件中从 offset 开始的 length 个字节被包含在根中。验证方持有这段字节，
+     * 证明只附带首尾分块中区间以外的字节以及这些连续分块的多叶子证明
+     *
+     * @param offset
+     * @param length
+     * @return
+     */
+    public ByteRangeProof proveRange(long offset, int length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Range length must be positive: " + length);
+        }
+        checkRange(offset, length);
+        int first = (int) (offset / chunkSize);
+        int last = (int) ((offset + length - 1) / chunkSize);
+        long chunkStart = (long) first * chunkSize;
+        long chunkEnd = Math.min((long) (last + 1) * chunkSize, fileSize);
+        byte[] prefix = readRange(chunkStart, (int) (offset - chunkStart));
+        byte[] suffix = readRange(offset + length, (int) (chunkEnd - offset - length));
+
+        int[] indices = new int[last - first + 1];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = first + i;
+        }
+        MerkleMultiProof multiProof = tree.getMultiProof(indices);
+        return new ByteRangeProof(offset, length, chunkSize, prefix, suffix, multiProof.getProof(),
+                multiProof.getProofFlags());
+    }
+
+    private void checkRange(long offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > fileSize) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + length) + ") of " + fileSize);
+        }
+    }
+
+    private void checkChunkIndex(int index) {
+        if (index < 0 || index >= chunkCount) {
+            throw new IndexOutOfBoundsException("Chunk index: " + index);
+        }
+    }
+
+    public byte[] getRoot() {
+        return tree.getRoot();
+    }
+
+    public CompactTree getCompactTree() {
+        return tree;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,574 @@
+package org.example.merkle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CompactTree 以连续的 byte[] 按层存储整棵默克尔树的哈希，不为每个哈希创建 Node 对象。
+ * 第 0 层为叶子哈希（奇数个叶子时末尾补一个重复叶子），第 k+1 层第 i 个节点由第 k 层的 2i 与 2i+1 节点计算得到，
+ * 若 2i+1 越界则与自身配对，与 MerkleTree.buildIntermediate 的规则一致。
+ */
+public class CompactTree {
+    // 数组对象头的估算字节数，用于内存统计
+    private static final int ARRAY_HEADER = 16;
+
+    private final byte[][] levels;
+    private final int[] counts;
+    private final int[] widths;
+    private final int leafCount;
+    private final HashStrategy hashStrategy;
+    private final boolean sort;
+
+    private CompactTree(byte[][] levels, int[] counts, int[] widths, int leafCount,
+                        HashStrategy hashStrategy, boolean sort) {
+        this.levels = levels;
+        this.counts = counts;
+        this.widths = widths;
+        this.leafCount = leafCount;
+        this.hashStrategy = hashStrategy;
+        this.sort = sort;
+    }
+
+    /**
+     * build 由叶子哈希列表构建紧凑树，所有叶子哈希长度必须一致
+     *
+     * @param leafHashes
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public static CompactTree build(List<byte[]> leafHashes, HashStrategy hashStrategy, boolean sort) throws Exception {
+        return build(leafHashes, hashStrategy, sort, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * build 由叶子哈希列表构建紧凑树；节点数不小于 parallelThreshold 的层在 pool 上分块并行计算
+     *
+     * @param leafHashes
+     * @param hashStrategy
+     * @param sort
+     * @param pool 为 null 时顺序构建
+     * @param parallelThreshold
+     * @return
+     * @throws Exception
+     */
+    public static CompactTree build(List<byte[]> leafHashes, HashStrategy hashStrategy, boolean sort,
+                                    ForkJoinPool pool, int parallelThreshold) throws Exception {
+        return build(leafHashes, hashStrategy, sort, pool, parallelThreshold, MerkleMetrics.NOOP);
+    }
+
+    static CompactTree build(List<byte[]> leafHashes, HashStrategy hashStrategy, boolean sort, ForkJoinPool pool,
+                             int parallelThreshold, MerkleMetrics metrics) throws Exception {
+        if (leafHashes == null || leafHashes.isEmpty()) {
+            throw new IllegalArgumentException("Cannot construct tree with no content");
+        }
+        int width = leafHashes.get(0).length;
+        if ((leafHashes.size() + 1L) / 2 * 2 * width > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many leaves for an in-heap tree: " + leafHashes.size());
+        }
+        byte[] slab = new byte[(leafHashes.size() + 1) / 2 * 2 * width];
+        for (int i = 0; i < leafHashes.size(); i++) {
+            byte[] leafHash = leafHashes.get(i);
+            if (leafHash.length != width) {
+                throw new IllegalArgumentException("Leaf hash " + i + " has length " + leafHash.length + ", expected " + width);
+            }
+            System.arraycopy(leafHash, 0, slab, i * width, width);
+        }
+        return build(slab, leafHashes.size(), width, hashStrategy, sort, pool, parallelThreshold, metrics);
+    }
+
+    /**
+     * build 由连续存放的叶子哈希构建紧凑树。slab 的长度至少为 leafCount 向上取偶后乘以 width，
+     * 奇数叶子时末尾的重复叶子由本方法写入
+     *
+     * @param leafSlab
+     * @param leafCount
+     * @param width
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public static CompactTree build(byte[] leafSlab, int leafCount, int width,
+                                    HashStrategy hashStrategy, boolean sort) throws Exception {
+        return build(leafSlab, leafCount, width, hashStrategy, sort, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * build 由连续存放的叶子哈希构建紧凑树；节点数不小于 parallelThreshold 的层在 pool 上分块并行计算，
+     * 结果与顺序构建逐字节相同
+     *
+     * @param leafSlab
+     * @param leafCount
+     * @param width
+     * @param hashStrategy
+     * @param sort
+     * @param pool 为 null 时顺序构建
+     * @param parallelThreshold
+     * @return
+     * @throws Exception
+     */
+    public static CompactTree build(byte[] leafSlab, int leafCount, int width, HashStrategy hashStrategy,
+                                    boolean sort, ForkJoinPool pool, int parallelThreshold) throws Exception {
+        return build(leafSlab, leafCount, width, hashStrategy, sort, pool, parallelThreshold, MerkleMetrics.NOOP);
+    }
+
+    /**
+     * build 同上，并把每层的构建耗时报告给 metrics
+     */
+    static CompactTree build(byte[] leafSlab, int leafCount, int width, HashStrategy hashStrategy, boolean sort,
+                             ForkJoinPool pool, int parallelThreshold, MerkleMetrics metrics) throws Exception {
+        if (leafCount <= 0) {
+            throw new IllegalArgumentException("Cannot construct tree with no content");
+        }
+        // 注意该默克尔树如果遇到奇节点的处理是使用重复节点
+        int paddedCount = (leafCount + 1) / 2 * 2;
+        if (leafCount % 2 == 1) {
+            System.arraycopy(leafSlab, (leafCount - 1) * width, leafSlab, leafCount * width, width);
+        }
+
+        int levelCount = levelCount(paddedCount);
+        byte[][] levels = new byte[levelCount][];
+        int[] counts = new int[levelCount];
+        int[] widths = new int[levelCount];
+        levels[0] = leafSlab;
+        counts[0] = paddedCount;
+        widths[0] = width;
+
+        Hash hash = hashStrategy.localHash();
+        int nodeWidth = hash.size();
+        for (int level = 1; level < levelCount; level++) {
+            counts[level] = (counts[level - 1] + 1) / 2;
+            widths[level] = nodeWidth;
+            levels[level] = new byte[counts[level] * nodeWidth];
+        }
+
+        CompactTree tree = new CompactTree(levels, counts, widths, leafCount, hashStrategy, sort);
+        boolean timed = metrics.isEnabled();
+        for (int level = 1; level < levelCount; level++) {
+            long start = timed ? System.nanoTime() : 0L;
+            if (pool != null && counts[level] >= parallelThreshold) {
+                final int current = level;
+                ParallelHashing.forEachRange(pool, 0, counts[level],
+                        (from, to) -> tree.hashLevel(hashStrategy.localHash(), current, from, to));
+            } else {
+                tree.hashLevel(hash, level, 0, counts[level]);
+            }
+            if (timed) {
+                metrics.levelBuilt(level, counts[level], System.nanoTime() - start);
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * levelCount 返回给定（已补齐为偶数的）叶子数对应的层数，包含叶子层与根所在层
+     *
+     * @param paddedCount
+     * @return
+     */
+    static int levelCount(int paddedCount) {
+        int levelCount = 1;
+        for (int count = paddedCount; count > 1; count = (count + 1) / 2) {
+            levelCount++;
+        }
+        return levelCount;
+    }
+
+    /**
+     * hashLevel 重新计算第 level 层 [from, to) 范围内节点的哈希
+     *
+     * @param hash
+     * @param level
+     * @param from
+     * @param to
+     * @throws Exception
+     */
+    void hashLevel(Hash hash, int level, int from, int to) throws Exception {
+        hashStrategy.combineLevel(hash, sort, levels[level - 1], counts[level - 1], widths[level - 1],
+                levels[level], widths[level], from, to);
+    }
+
+    /**
+     * getMerklePath 通过下标运算返回第 index 个叶子的默克尔路径，格式与 MerkleTree.getMerklePath 相同
+     *
+     * @param index
+     * @return
+     */
+    public MerklePathResult getMerklePath(int index) {
+        checkLeafIndex(index);
+        List<byte[]> merklePath = new ArrayList<>(levels.length - 1);
+        List<Integer> indexes = new ArrayList<>(levels.length - 1);
+        int current = index;
+        for (int level = 0; level < levels.length - 1; level++) {
+            int sibling = siblingOf(level, current);
+            merklePath.add(getHash(level, sibling));
+            indexes.add(current % 2 == 0 ? 1 : 0);
+            current /= 2;
+        }
+        return new MerklePathResult(merklePath, indexes);
+    }
+
+    /**
+     * getRangeProof 返回证明下标在 [from, to) 内的连续叶子的区间证明，只取两条边界路径上区间外的兄弟哈希
+     *
+     * @param from 第一个叶子的下标（包含）
+     * @param to 末尾叶子之后的下标（不包含）
+     * @return
+     */
+    public RangeProof getRangeProof(int from, int to) {
+        if (from >= to) {
+            throw new IllegalArgumentException("Empty leaf range: [" + from + ", " + to + ")");
+        }
+        checkLeafIndex(from);
+        checkLeafIndex(to - 1);
+        List<byte[]> leftProof = new ArrayList<>();
+        List<byte[]> rightProof = new ArrayList<>();
+        int lo = from;
+        int hi = to - 1;
+        // 按真实叶子数计算每层节点数，末尾补齐的重复叶子视为与自身配对
+        int count = leafCount;
+        for (int level = 0; level < levels.length - 1; level++) {
+            if (lo % 2 == 1) {
+                leftProof.add(getHash(level, lo - 1));
+            }
+            if (hi % 2 == 0 && hi + 1 < count) {
+                rightProof.add(getHash(level, hi + 1));
+            }
+            lo /= 2;
+            hi /= 2;
+            count = (count + 1) / 2;
+        }
+        return new RangeProof(leafCount, from, to, leftProof, rightProof);
+    }
+
+    /**
+     * getSubtreeRoot 返回以第 level 层第 index 个节点为根的对齐子树的根，即覆盖叶子
+     * [index * 2^level, (index + 1) * 2^level) 的子树；第 0 层为叶子哈希本身
+     *
+     * @param level
+     * @param index
+     * @return
+     */
+    public byte[] getSubtreeRoot(int level, int index) {
+        if (level < 0 || level >= levels.length) {
+            throw new IndexOutOfBoundsException("Level: " + level);
+        }
+        return getHash(level, index);
+    }
+
+    /**
+     * getMultiProof 返回同时证明多个叶子的最小证明；逐层从左到右处理已知节点，
+     * 兄弟节点已知时合并二者，否则从树中取出兄弟哈希放入 proof
+     *
+     * @param indices 叶子下标，可以无序或重复
+     * @return
+     */
+    public MerkleMultiProof getMultiProof(int[] indices) {
+        if (indices.length == 0) {
+            throw new IllegalArgumentException("Cannot construct multiproof with no leaves");
+        }
+        int[] known = indices.clone();
+        Arrays.sort(known);
+        int knownCount = 0;
+        for (int index : known) {
+            checkLeafIndex(index);
+            if (knownCount == 0 || known[knownCount - 1] != index) {
+                known[knownCount++] = index;
+            }
+        }
+
+        int[] sortedIndices = Arrays.copyOf(known, knownCount);
+        List<byte[]> leaves = new ArrayList<>(knownCount);
+        for (int index : sortedIndices) {
+            leaves.add(getHash(0, index));
+        }
+        List<byte[]> proof = new ArrayList<>();
+        List<Boolean> proofFlags = new ArrayList<>();
+        for (int level = 0; level < levels.length - 1; level++) {
+            int nextCount = 0;
+            for (int i = 0; i < knownCount; i++) {
+                int index = known[i];
+                int sibling = siblingOf(level, index);
+                if (sibling != index && i + 1 < knownCount && known[i + 1] == sibling) {
+                    proofFlags.add(true);
+                    i++;
+                } else {
+                    proof.add(getHash(level, sibling));
+                    proofFlags.add(false);
+                }
+                known[nextCount++] = index / 2;
+            }
+            knownCount = nextCount;
+        }
+        return new MerkleMultiProof(sortedIndices, leaves, proof, proofFlags);
+    }
+
+    /**
+     * verifyPath 校验第 index 个叶子到根路径上每个父节点的哈希是否等于其子节点重新计算的结果
+     *
+     * @param index
+     * @return
+     * @throws Exception
+     */
+    public boolean verifyPath(int index) throws Exception {
+        checkLeafIndex(index);
+        Hash hash = hashStrategy.localHash();
+        byte[] calculated = new byte[hash.size()];
+        int current = index / 2;
+        for (int level = 1; level < levels.length; level++) {
+            int childWidth = widths[level - 1];
+            int left = 2 * current;
+            int right = left + 1 < counts[level - 1] ? left + 1 : left;
+            hashStrategy.combine(hash, sort, levels[level - 1], left * childWidth, levels[level - 1],
+                    right * childWidth, childWidth, calculated, 0);
+            if (HashStrategy.compare(calculated, 0, levels[level], current * widths[level], widths[level]) != 0) {
+                return false;
+            }
+            current /= 2;
+        }
+        return true;
+    }
+
+    /**
+     * verifyLevels 逐层用子节点重新计算每个内部节点并与已存储的哈希比较，不重新计算叶子内容。
+     * 节点数不小于 parallelThreshold 的层切分为若干子树区间在 pool 上并行校验，校验深度与树高无关，不使用递归。
+     * 返回层号最小、同层下标最小的不一致节点
+     *
+     * @param pool 为 null 时顺序校验
+     * @param parallelThreshold
+     * @return
+     * @throws Exception
+     */
+    public TreeVerifyResult verifyLevels(ForkJoinPool pool, int parallelThreshold) throws Exception {
+        if (leafCount % 2 == 1 && HashStrategy.compare(levels[0], (leafCount - 1) * widths[0],
+                levels[0], leafCount * widths[0], widths[0]) != 0) {
+            return TreeVerifyResult.failure(0, leafCount);
+        }
+        for (int level = 1; level < levels.length; level++) {
+            int failed;
+            if (pool != null && counts[level] >= parallelThreshold) {
+                final int current = level;
+                AtomicInteger first = new AtomicInteger(Integer.MAX_VALUE);
+                ParallelHashing.forEachRange(pool, 0, counts[level], (from, to) -> {
+                    // 已发现更靠前的不一致节点时跳过本区间
+                    if (from < first.get()) {
+                        int mismatch = findMismatch(hashStrategy.localHash(), current, from, to);
+                        if (mismatch >= 0) {
+                            first.accumulateAndGet(mismatch, Math::min);
+                        }
+                    }
+                });
+                failed = first.get() == Integer.MAX_VALUE ? -1 : first.get();
+            } else {
+                failed = findMismatch(hashStrategy.localHash(), level, 0, counts[level]);
+            }
+            if (failed >= 0) {
+                return TreeVerifyResult.failure(level, failed);
+            }
+        }
+        return TreeVerifyResult.valid();
+    }
+
+    /**
+     * verifyPaths 只校验给定叶子到根路径上的内部节点，多个叶子共享的祖先只校验一次
+     *
+     * @param sortedLeafIndices 升序排列的叶子下标
+     * @return
+     * @throws Exception
+     */
+    public TreeVerifyResult verifyPaths(int[] sortedLeafIndices) throws Exception {
+        if (sortedLeafIndices.length == 0) {
+            return TreeVerifyResult.valid();
+        }
+        if (sortedLeafIndices[sortedLeafIndices.length - 1] == leafCount - 1 && leafCount % 2 == 1
+                && HashStrategy.compare(levels[0], (leafCount - 1) * widths[0],
+                levels[0], leafCount * widths[0], widths[0]) != 0) {
+            return TreeVerifyResult.failure(0, leafCount);
+        }
+        Hash hash = hashStrategy.localHash();
+        int[] dirty = sortedLeafIndices.clone();
+        int dirtyCount = dirty.length;
+        for (int level = 1; level < levels.length; level++) {
+            int parentCount = 0;
+            for (int i = 0; i < dirtyCount; i++) {
+                int parent = dirty[i] / 2;
+                if (parentCount == 0 || dirty[parentCount - 1] != parent) {
+                    dirty[parentCount++] = parent;
+                }
+            }
+            dirtyCount = parentCount;
+            for (int i = 0; i < dirtyCount; i++) {
+                if (findMismatch(hash, level, dirty[i], dirty[i] + 1) >= 0) {
+                    return TreeVerifyResult.failure(level, dirty[i]);
+                }
+            }
+        }
+        return TreeVerifyResult.valid();
+    }
+
+    /**
+     * findMismatch 返回第 level 层 [from, to) 中第一个与子节点重新计算结果不一致的节点下标，全部一致时返回 -1
+     */
+    private int findMismatch(Hash hash, int level, int from, int to) throws Exception {
+        byte[] children = levels[level - 1];
+        int childWidth = widths[level - 1];
+        int childCount = counts[level - 1];
+        int width = widths[level];
+        byte[] calculated = new byte[width];
+        for (int i = from; i < to; i++) {
+            int left = 2 * i;
+            int right = left + 1 < childCount ? left + 1 : left;
+            hashStrategy.combine(hash, sort, children, left * childWidth, children, right * childWidth, childWidth,
+                    calculated, 0);
+            if (HashStrategy.compare(calculated, 0, levels[level], i * width, width) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * setLeafHash 替换第 index 个叶子的哈希，不重新计算祖先；若它是奇数个叶子中的最后一个，补齐用的重复叶子同步替换。
+     * 之后需调用 rehash 更新祖先节点
+     *
+     * @param index
+     * @param hash
+     */
+    public void setLeafHash(int index, byte[] hash) {
+        checkLeafIndex(index);
+        int width = widths[0];
+        if (hash.length != width) {
+            throw new IllegalArgumentException("Leaf hash has length " + hash.length + ", expected " + width);
+        }
+        System.arraycopy(hash, 0, levels[0], index * width, width);
+        if (index == leafCount - 1 && leafCount % 2 == 1) {
+            System.arraycopy(hash, 0, levels[0], (index + 1) * width, width);
+        }
+    }
+
+    /**
+     * rehash 重新计算给定叶子到根路径上的所有节点，多个叶子共享的祖先只计算一次
+     *
+     * @param sortedLeafIndices 升序排列的叶子下标
+     * @throws Exception
+     */
+    public void rehash(int[] sortedLeafIndices) throws Exception {
+        if (sortedLeafIndices.length == 0) {
+            return;
+        }
+        Hash hash = hashStrategy.localHash();
+        int[] dirty = sortedLeafIndices.clone();
+        int dirtyCount = dirty.length;
+        for (int level = 1; level < levels.length; level++) {
+            // 父节点下标同样有序，去掉相邻重复即可保证每个祖先只计算一次
+            int parentCount = 0;
+            for (int i = 0; i < dirtyCount; i++) {
+                int parent = dirty[i] / 2;
+                if (parentCount == 0 || dirty[parentCount - 1] != parent) {
+                    dirty[parentCount++] = parent;
+                }
+            }
+            dirtyCount = parentCount;
+            for (int i = 0; i < dirtyCount; i++) {
+                hashLevel(hash, level, dirty[i], dirty[i] + 1);
+            }
+        }
+    }
+
+    int siblingOf(int level, int index) {
+        int sibling = index ^ 1;
+        return sibling < counts[level] ? sibling : index;
+    }
+
+    private void checkLeafIndex(int index) {
+        if (index < 0 || index >= leafCount) {
+            throw new IndexOutOfBoundsException("Leaf index: " + index);
+        }
+    }
+
+    /**
+     * getHash 返回第 level 层第 index 个节点哈希的副本
+     *
+     * @param level
+     * @param index
+     * @return
+     */
+    public byte[] getHash(int level, int index) {
+        if (index < 0 || index >= counts[level]) {
+            throw new IndexOutOfBoundsException("Level " + level + " index: " + index);
+        }
+        int width = widths[level];
+        return Arrays.copyOfRange(levels[level], index * width, (index + 1) * width);
+    }
+
+    /**
+     * hashEquals 比较第 level 层第 index 个节点哈希是否等于给定哈希，不产生拷贝
+     *
+     * @param level
+     * @param index
+     * @param hash
+     * @return
+     */
+    public boolean hashEquals(int level, int index, byte[] hash) {
+        int width = widths[level];
+        return hash.length == width && HashStrategy.compare(levels[level], index * width, hash, 0, width) == 0;
+    }
+
+    /**
+     * levelData 返回第 level 层的底层数组，不拷贝，调用方不得修改
+     */
+    byte[] levelData(int level) {
+        return levels[level];
+    }
+
+    public byte[] getRoot() {
+        return getHash(levels.length - 1, 0);
+    }
+
+    /**
+     * getLeafCount 返回真实叶子数，不包含补齐用的重复叶子
+     *
+     * @return
+     */
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    public int getLevelSize(int level) {
+        return counts[level];
+    }
+
+    public int getHashWidth(int level) {
+        return widths[level];
+    }
+
+    public HashStrategy getHashStrategy() {
+        return hashStrategy;
+    }
+
+    public boolean isSort() {
+        return sort;
+    }
+
+    /**
+     * memoryUsage 返回各层哈希数组占用的字节数（含数组对象头的估算）
+     *
+     * @return
+     */
+    public long memoryUsage() {
+        long bytes = ARRAY_HEADER + (long) levels.length * 8;
+        for (byte[] level : levels) {
+            bytes += ARRAY_HEADER + level.length;
+        }
+        return bytes + 2L * (ARRAY_HEADER + levels.length * 4L);
+    }
+}
@@ -0,0 +1,290 @@
+package org.example.merkle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ConcurrentMerkleTree 让证明查询与写入并发进行。每次提交都生成一个不可变的 MerkleTreeVersion，
+ * 通过 AtomicReference 原子发布；读者只读取一次当前版本，之后的根、叶子、哈希索引与路径都来自同一版本，
+ * 不加锁、不阻塞，也不会看到构建到一半的树。
+ * <p>
+ * 写者在自己的线程中计算叶子哈希后将更新放入队列，由恰好一个写者作为提交者把队列中积压的更新合并为一个新版本
+ * 一次发布（组提交），其余写者不等待锁，只等待包含自己更新的版本发布
+ */
+public class ConcurrentMerkleTree {
+    private final HashStrategy hashStrategy;
+    private final boolean sort;
+    private final AtomicReference<MerkleTreeVersion> current;
+    private final ConcurrentLinkedQueue<PendingUpdate> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean committing = new AtomicBoolean();
+
+    private ConcurrentMerkleTree(MerkleTreeVersion initial) {
+        this.hashStrategy = initial.getHashStrategy();
+        this.sort = initial.isSort();
+        this.current = new AtomicReference<>(initial);
+    }
+
+    /**
+     * newTree 由内容列表构建版本 0，根与 MerkleTree.newTree 相同
+     *
+     * @param contentList
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public static ConcurrentMerkleTree newTree(List<Content> contentList, HashStrategy hashStrategy,
+                                               boolean sort) throws Exception {
+        return new ConcurrentMerkleTree(MerkleTreeVersion.newVersion(contentList, hashStrategy, sort));
+    }
+
+    /**
+     * snapshot 返回最近发布的版本，调用方可以在该版本上做任意多次一致的查询
+     *
+     * @return
+     */
+    public MerkleTreeVersion snapshot() {
+        return current.get();
+    }
+
+    public byte[] getMerkleRoot() {
+        return current.get().getMerkleRoot();
+    }
+
+    public int getLeafCount() {
+        return current.get().getLeafCount();
+    }
+
+    /**
+     * getMerklePath 在最近发布的版本上返回第 index 个叶子的默克尔路径
+     *
+     * @param index
+     * @return
+     */
+    public MerklePathResult getMerklePath(int index) {
+        return current.get().getMerklePath(index);
+    }
+
+    /**
+     * getMerklePath 在最近发布的版本上返回给定内容的默克尔路径，内容不在树中时返回 null
+     *
+     * @param content
+     * @return
+     * @throws Exception
+     */
+    public MerklePathResult getMerklePath(Content content) throws Exception {
+        return getMerklePath(content.calculateHash());
+    }
+
+    /**
+     * getMerklePath 在最近发布的版本上返回给定叶子哈希的默克尔路径，叶子不存在时返回 null
+     *
+     * @param leafHash
+     * @return
+     */
+    public MerklePathResult getMerklePath(byte[] leafHash) {
+        MerkleTreeVersion snapshot = current.get();
+        int index = snapshot.indexOf(leafHash);
+        return index < 0 ? null : snapshot.getMerklePath(index);
+    }
+
+    /**
+     * verifyContent 判断内容是否在最近发布的版本中
+     *
+     * @param content
+     * @return
+     * @throws Exception
+     */
+    public boolean verifyContent(Content content) throws Exception {
+        return current.get().indexOf(content.calculateHash()) >= 0;
+    }
+
+    /**
+     * indexOf 返回给定叶子哈希在最近发布的版本中第一次出现的下标，不存在时返回 -1
+     *
+     * @param leafHash
+     * @return
+     */
+    public int indexOf(byte[] leafHash) {
+        return current.get().indexOf(leafHash);
+    }
+
+    /**
+     * updateLeaf 替换一个叶子，返回包含该更新的已发布版本
+     *
+     * @param index
+     * @param content
+     * @return
+     * @throws Exception
+     */
+    public MerkleTreeVersion updateLeaf(int index, Content content) throws Exception {
+        Map<Integer, Content> updates = new HashMap<>();
+        updates.put(index, content);
+        return update(updates);
+    }
+
+    /**
+     * update 替换一批叶子，阻塞到包含这批更新的版本发布后返回该版本
+     *
+     * @param updates 叶子下标到新内容的映射
+     * @return
+     * @throws Exception
+     */
+    public MerkleTreeVersion update(Map<Integer, Content> updates) throws Exception {
+        return await(submit(updates));
+    }
+
+    /**
+     * submit 在调用线程中计算新叶子的哈希后将更新排入队列，不等待发布。同一批提交中后排入的更新覆盖先排入的同一叶子
+     *
+     * @param updates 叶子下标到新内容的映射
+     * @return 包含这批更新的版本发布后完成
+     * @throws Exception
+     */
+    public CompletableFuture<MerkleTreeVersion> submit(Map<Integer, Content> updates) throws Exception {
+        if (updates.isEmpty()) {
+            return CompletableFuture.completedFuture(current.get());
+        }
+        TreeMap<Integer, Content> contents = new TreeMap<>(updates);
+        Map<Integer, byte[]> hashes = new HashMap<>(contents.size() * 4 / 3 + 1);
+        for (Map.Entry<Integer, Content> entry : contents.entrySet()) {
+            if (entry.getKey() == null || entry.getKey() < 0) {
+                throw new IndexOutOfBoundsException("Leaf index: " + entry.getKey());
+            }
+            hashes.put(entry.getKey(), entry.getValue().calculateHash());
+        }
+        return enqueue(new PendingUpdate(contents, hashes, null));
+    }
+
+    /**
+     * rebuild 在调用线程中用新的内容列表构建整棵树，再作为一次提交发布，读者在发布前继续使用旧版本
+     *
+     * @param contentList
+     * @return
+     * @throws Exception
+     */
+    public MerkleTreeVersion rebuild(List<Content> contentList) throws Exception {
+        MerkleTreeVersion rebuilt = MerkleTreeVersion.newVersion(contentList, hashStrategy, sort);
+        return await(enqueue(new PendingUpdate(null, null, rebuilt)));
+    }
+
+    private CompletableFuture<MerkleTreeVersion> enqueue(PendingUpdate pending) {
+        queue.add(pending);
+        // 没有提交者时由当前写者提交；释放后再检查一次，避免在释放前入队的更新无人处理
+        while (!queue.isEmpty() && committing.compareAndSet(false, true)) {
+            try {
+                commit();
+            } finally {
+                committing.set(false);
+            }
+        }
+        return pending.future;
+    }
+
+    private static MerkleTreeVersion await(CompletableFuture<MerkleTreeVersion> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * commit 取出队列中积压的全部更新，按入队顺序合并为一个版本后一次发布
+     */
+    private void commit() {
+        List<PendingUpdate> accepted = new ArrayList<>();
+        MerkleTreeVersion base = current.get();
+        MerkleTreeVersion rebuilt = null;
+        // 每个叶子最后一次更新所在的 pending
+        TreeMap<Integer, PendingUpdate> merged = new TreeMap<>();
+        PendingUpdate pending;
+        while ((pending = queue.poll()) != null) {
+            if (pending.rebuilt != null) {
+                rebuilt = pending.rebuilt;
+                merged.clear();
+                accepted.add(pending);
+                continue;
+            }
+            int leafCount = rebuilt != null ? rebuilt.getLeafCount() : base.getLeafCount();
+            if (pending.contents.lastKey() >= leafCount) {
+                pending.future.completeExceptionally(
+                        new IndexOutOfBoundsException("Leaf index: " + pending.contents.lastKey()));
+                continue;
+            }
+            for (Integer index : pending.contents.keySet()) {
+                merged.put(index, pending);
+            }
+            accepted.add(pending);
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        MerkleTreeVersion next;
+        try {
+            next = apply(rebuilt != null ? rebuilt : base, base.getVersion() + 1, merged);
+        } catch (Exception | Error e) {
+            for (PendingUpdate p : accepted) {
+                p.future.completeExceptionally(e);
+            }
+            return;
+        }
+
+        current.set(next);
+        for (PendingUpdate p : accepted) {
+            p.future.complete(next);
+        }
+    }
+
+    private MerkleTreeVersion apply(MerkleTreeVersion start, long version, TreeMap<Integer, PendingUpdate> merged)
+            throws Exception {
+        if (merged.isEmpty()) {
+            return start.withVersion(version);
+        }
+        int[] indices = new int[merged.size()];
+        Content[] contents = new Content[merged.size()];
+        byte[][] hashes = new byte[merged.size()][];
+        int n = 0;
+        for (Map.Entry<Integer, PendingUpdate> entry : merged.entrySet()) {
+            indices[n] = entry.getKey();
+            contents[n] = entry.getValue().contents.get(entry.getKey());
+            hashes[n] = entry.getValue().hashes.get(entry.getKey());
+            n++;
+        }
+        return start.update(indices, contents, hashes, version);
+    }
+
+    public HashStrategy getHashStrategy() {
+        return hashStrategy;
+    }
+
+    public boolean isSort() {
+        return sort;
+    }
+
+    private static final class PendingUpdate {
+        final TreeMap<Integer, Content> contents;
+        final Map<Integer, byte[]> hashes;
+        final MerkleTreeVersion rebuilt;
+        final CompletableFuture<MerkleTreeVersion> future = new CompletableFuture<>();
+
+        PendingUpdate(TreeMap<Integer, Content> contents, Map<Integer, byte[]> hashes, MerkleTreeVersion rebuilt) {
+            this.contents = contents;
+            this.hashes = hashes;
+            this.rebuilt = rebuilt;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package org.example.merkle;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * ExternalMerkleBuilder 为超出堆大小的数据集构建默克尔树：叶子按批读取并哈希后写入磁盘，
+ * 每一层都通过顺序读取上一层文件逐批计算，最后拼接为 MerkleTreeFile 格式。峰值内存只与批大小有关，
+ * 与叶子数无关，得到的根与 MerkleTree.newTree 完全相同
+ */
+public class ExternalMerkleBuilder {
+    public static final int DEFAULT_BATCH_SIZE = 1 << 16;
+
+    private final HashStrategy hashStrategy;
+    private final boolean sort;
+    private final Path workDir;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private ForkJoinPool forkJoinPool;
+
+    private ExternalMerkleBuilder(HashStrategy hashStrategy, boolean sort, Path workDir) {
+        this.hashStrategy = hashStrategy;
+        this.sort = sort;
+        this.workDir = workDir;
+    }
+
+    /**
+     * newBuilder 创建构建器，workDir 用于存放构建过程中的各层临时文件
+     *
+     * @param hashStrategy
+     * @param sort
+     * @param workDir
+     * @return
+     */
+    public static ExternalMerkleBuilder newBuilder(HashStrategy hashStrategy, boolean sort, Path workDir) {
+        return new ExternalMerkleBuilder(hashStrategy, sort, workDir);
+    }
+
+    /**
+     * build 从按行分隔的文本文件读取叶子，每行经 contentFactory 转换为 Content
+     *
+     * @param input
+     * @param contentFactory
+     * @param output
+     * @return 默克尔根
+     * @throws Exception
+     */
+    public byte[] build(Path input, Function<String, Content> contentFactory, Path output) throws Exception {
+        try (InputStream in = Files.newInputStream(input)) {
+            return build(in, contentFactory, output);
+        }
+    }
+
+    /**
+     * build 从按行分隔的 UTF-8 文本流读取叶子，每行经 contentFactory 转换为 Content
+     *
+     * @param input
+     * @param contentFactory
+     * @param output
+     * @return 默克尔根
+     * @throws Exception
+     */
+    public byte[] build(InputStream input, Function<String, Content> contentFactory, Path output) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return build(new LineIterator(reader, contentFactory), output);
+    }
+
+    /**
+     * build 从迭代器读取叶子，将所有层写入 output（MerkleTreeFile 格式，不含叶子索引）
+     *
+     * @param leaves
+     * @param output
+     * @return 默克尔根
+     * @throws Exception
+     */
+    public byte[] build(Iterator<Content> leaves, Path output) throws Exception {
+        List<Path> levelFiles = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        List<Integer> widths = new ArrayList<>();
+        try {
+            Path leafFile = Files.createTempFile(workDir, "merkle-level-0-", ".bin");
+            levelFiles.add(leafFile);
+            long[] leafShape = writeLeaves(leaves, leafFile);
+            counts.add(leafShape[0]);
+            widths.add((int) leafShape[1]);
+
+            int nodeWidth = hashStrategy.createHash().size();
+            while (counts.get(counts.size() - 1) > 1) {
+                int level = counts.size();
+                Path levelFile = Files.createTempFile(workDir, "merkle-level-" + level + "-", ".bin");
+                levelFiles.add(levelFile);
+                long childCount = counts.get(level - 1);
+                writeLevel(levelFiles.get(level - 1), childCount, widths.get(level - 1), levelFile, nodeWidth);
+                counts.add((childCount + 1) / 2);
+                widths.add(nodeWidth);
+            }
+
+            long leafCount = leafShape[2];
+            assemble(levelFiles, counts, widths, leafCount, output);
+            byte[] root = new byte[nodeWidth];
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(levelFiles.get(levelFiles.size() - 1)))) {
+                in.readFully(root);
+            }
+            return root;
+        } finally {
+            for (Path levelFile : levelFiles) {
+                Files.deleteIfExists(levelFile);
+            }
+        }
+    }
+
+    /**
+     * writeLeaves 按批哈希叶子并顺序写入，奇数个叶子时补写最后一个叶子的副本。返回 {补齐后的数量, 哈希宽度, 真实叶子数}
+     */
+    private long[] writeLeaves(Iterator<Content> leaves, Path leafFile) throws Exception {
+        long leafCount = 0;
+        int width = -1;
+        byte[] last = null;
+        Content[] batch = new Content[batchSize];
+        byte[][] hashes = new byte[batchSize][];
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(leafFile), 1 << 16)) {
+            while (leaves.hasNext()) {
+                int size = 0;
+                while (size < batchSize && leaves.hasNext()) {
+                    batch[size++] = leaves.next();
+                }
+                hashBatch(batch, hashes, size);
+                for (int i = 0; i < size; i++) {
+                    if (width < 0) {
+                        width = hashes[i].length;
+                    } else if (hashes[i].length != width) {
+                        throw new IllegalArgumentException("Leaf hash " + (leafCount + i) + " has length "
+                                + hashes[i].length + ", expected " + width);
+                    }
+                    out.write(hashes[i]);
+                    batch[i] = null;
+                }
+                last = hashes[size - 1];
+                leafCount += size;
+            }
+            if (leafCount == 0) {
+                throw new IllegalArgumentException("Cannot construct tree with no content");
+            }
+            // 注意该默克尔树如果遇到奇节点的处理是使用重复节点
+            if (leafCount % 2 == 1) {
+                out.write(last);
+            }
+        }
+        return new long[]{(leafCount + 1) / 2 * 2, width, leafCount};
+    }
+
+    private void hashBatch(Content[] batch, byte[][] hashes, int size) throws Exception {
+        if (forkJoinPool == null) {
+            for (int i = 0; i < size; i++) {
+                hashes[i] = batch[i].calculateHash();
+            }
+            return;
+        }
+        ParallelHashing.forEachRange(forkJoinPool, 0, size, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                hashes[i] = batch[i].calculateHash();
+            }
+        });
+    }
+
+    /**
+     * writeLevel 顺序读取子层文件，每批最多 batchSize 个父节点，计算后顺序写出
+     */
+    private void writeLevel(Path childFile, long childCount, int childWidth, Path levelFile, int width)
+            throws Exception {
+        byte[] children = new byte[batchSize * 2 * childWidth];
+        byte[] parents = new byte[batchSize * width];
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(childFile));
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(levelFile), 1 << 16)) {
+            long remaining = childCount;
+            while (remaining > 0) {
+                int batchChildren = (int) Math.min(remaining, 2L * batchSize);
+                in.readFully(children, 0, batchChildren * childWidth);
+                int batchParents = (batchChildren + 1) / 2;
+                if (forkJoinPool == null) {
+                    hashParents(hashStrategy.localHash(), children, batchChildren, childWidth, parents, width, 0, batchParents);
+                } else {
+                    ParallelHashing.forEachRange(forkJoinPool, 0, batchParents, (from, to) -> hashParents(
+                            hashStrategy.localHash(), children, batchChildren, childWidth, parents, width, from, to));
+                }
+                out.write(parents, 0, batchParents * width);
+                remaining -= batchChildren;
+            }
+        }
+    }
+
+    private void hashParents(Hash hash, byte[] children, int childCount, int childWidth, byte[] parents, int width,
+                             int from, int to) throws IOException {
+        // 只有整层的最后一批可能出现奇数个子节点，此时末尾节点与自身配对
+        hashStrategy.combineLevel(hash, sort, children, childCount, childWidth, parents, width, from, to);
+    }
+
+    private void assemble(List<Path> levelFiles, List<Long> counts, List<Integer> widths, long leafCount,
+                          Path output) throws IOException {
+        long[] levelCounts = new long[counts.size()];
+        int[] levelWidths = new int[widths.size()];
+        for (int level = 0; level < levelCounts.length; level++) {
+            levelCounts[level] = counts.get(level);
+            levelWidths[level] = widths.get(level);
+        }
+        long[] offsets = MerkleTreeFile.layout(levelCounts, levelWidths, 0);
+        try (DataOutputStream header = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            MerkleTreeFile.writeHeader(header, leafCount, sort, hashStrategy.algorithmId(),
+                    levelWidths[levelWidths.length - 1], levelCounts, levelWidths, offsets, 0);
+        }
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE)) {
+            for (int level = 0; level < levelFiles.size(); level++) {
+                try (FileChannel in = FileChannel.open(levelFiles.get(level), StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long transferred = 0;
+                    while (transferred < size) {
+                        transferred += in.transferTo(transferred, size - transferred,
+                                out.position(offsets[level] + transferred));
+                    }
+                }
+            }
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * setBatchSize 设置每批处理的叶子数与父节点数，决定构建过程的峰值内存
+     *
+     * @param batchSize
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    /**
+     * setForkJoinPool 设置后每一批在 pool 上并行哈希，为 null 时顺序哈希
+     *
+     * @param forkJoinPool
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    private static final class LineIterator implements Iterator<Content> {
+        private final BufferedReader reader;
+        private final Function<String, Content> contentFactory;
+        private String next;
+
+        LineIterator(BufferedReader reader, Function<String, Content> contentFactory) {
+            this.reader = reader;
+            this.contentFactory = contentFactory;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = reader.readLine();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to read leaf", e);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Content next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String line = next;
+            next = null;
+            return contentFactory.apply(line);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.merkle;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * FileChunkContent 是文件中一个定长分块对应的叶子，数据直接从映射缓冲区读取，不拷贝到堆上的字符串或数组
+ */
+public class FileChunkContent implements Content {
+    private final ByteBuffer chunk;
+    private final HashStrategy hashStrategy;
+    // 缓存的分块哈希
+    private byte[] hash;
+
+    /**
+     * @param chunk 分块数据，position 到 limit 之间的字节为分块内容，不会被修改
+     * @param hashStrategy
+     */
+    public FileChunkContent(ByteBuffer chunk, HashStrategy hashStrategy) {
+        this.chunk = chunk.duplicate();
+        this.hashStrategy = hashStrategy;
+    }
+
+    @Override
+    public byte[] calculateHash() throws Exception {
+        if (hash == null) {
+            Hash chunkHash = hashStrategy.createHash();
+            chunkHash.write(chunk.duplicate());
+            hash = new byte[chunkHash.size()];
+            chunkHash.doFinal(hash, 0);
+        }
+        return hash.clone();
+    }
+
+    @Override
+    public boolean equals(Content other) throws Exception {
+        return Arrays.equals(calculateHash(), other.calculateHash());
+    }
+
+    /**
+     * getChunk 返回分块数据的只读视图
+     *
+     * @return
+     */
+    public ByteBuffer getChunk() {
+        return chunk.asReadOnlyBuffer();
+    }
+}
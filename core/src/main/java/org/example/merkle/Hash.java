@@ -0,0 +1,90 @@
+package org.example.merkle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Hash 通用hash类，方便hash的扩展
+ */
+public interface Hash {
+    /**
+     * 向当前哈希中添加更多数据（通过嵌入的 OutputStream 接口）。
+     * 它永远不会返回错误。
+     * @param data 需要写入的数据
+     * @throws IOException 如果写入操作失败，可能会抛出异常
+     */
+    void write(byte[] data) throws IOException;
+
+    /**
+     * 向当前哈希中添加 data 从 off 开始的 len 个字节。
+     * 默认实现会拷贝该区间，实现类应覆盖为直接写入摘要。
+     * @param data 需要写入的数据
+     * @param off 起始位置
+     * @param len 字节数
+     * @throws IOException 如果写入操作失败，可能会抛出异常
+     */
+    default void write(byte[] data, int off, int len) throws IOException {
+        write(Arrays.copyOfRange(data, off, off + len));
+    }
+
+    /**
+     * 向当前哈希中添加 data 中剩余的全部字节，完成后 data 的 position 等于 limit。
+     * 默认实现对堆缓冲区直接写入底层数组，对直接缓冲区（如文件映射）分段拷贝，实现类可覆盖为直接读取缓冲区。
+     * @param data 需要写入的数据
+     * @throws IOException 如果写入操作失败，可能会抛出异常
+     */
+    default void write(ByteBuffer data) throws IOException {
+        if (data.hasArray()) {
+            write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+            data.position(data.limit());
+            return;
+        }
+        byte[] buffer = new byte[Math.min(data.remaining(), 8192)];
+        while (data.hasRemaining()) {
+            int len = Math.min(data.remaining(), buffer.length);
+            data.get(buffer, 0, len);
+            write(buffer, 0, len);
+        }
+    }
+
+    /**
+     * 将当前哈希值附加到给定的字节数组 b 中，并返回最终的字节数组。
+     * 这个方法不会改变哈希的内部状态。
+     * @param b 要附加的字节数组
+     * @return 当前哈希值附加后的字节数组
+     */
+    byte[] sum(byte[] b);
+
+    /**
+     * 将当前哈希值写入 out 的 off 位置并重置哈希。
+     * 与 sum 不同，它会改变内部状态，实现类应覆盖为不分配任何中间数组。
+     * @param out 输出数组，从 off 开始至少有 size() 个字节可写
+     * @param off 输出起始位置
+     * @return 写入的字节数
+     */
+    default int doFinal(byte[] out, int off) {
+        byte[] result = sum(null);
+        System.arraycopy(result, 0, out, off, result.length);
+        reset();
+        return result.length;
+    }
+
+    /**
+     * 重置哈希，恢复到初始状态。
+     */
+    void reset();
+
+    /**
+     * 返回哈希的字节长度。
+     * @return 哈希的字节长度
+     */
+    int size();
+
+    /**
+     * 返回哈希算法的底层块大小。
+     * Write 方法必须能够接受任意大小的数据，但如果所有写入数据都是块大小的倍数，可能会更高效。
+     * @return 哈希算法的块大小
+     */
+    int blockSize();
+}
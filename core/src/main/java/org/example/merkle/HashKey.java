@@ -0,0 +1,41 @@
+package org.example.merkle;
+
+import java.util.Arrays;
+
+/**
+ * HashKey 将哈希字节数组包装为可用作 Map 键的值对象，按内容比较相等性
+ */
+public final class HashKey {
+    private final byte[] hash;
+    private final int hashCode;
+
+    public HashKey(byte[] hash) {
+        this.hash = hash;
+        this.hashCode = Arrays.hashCode(hash);
+    }
+
+    public byte[] getHash() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HashKey)) {
+            return false;
+        }
+        return Arrays.equals(hash, ((HashKey) o).hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(hash);
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.merkle;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * @author jingliu_xiong@foxmail.com
+ */
+public interface HashStrategy {
+    // 写入 MerkleTreeFile 等持久化格式的算法编号
+    int ALGORITHM_UNKNOWN = 0;
+    int ALGORITHM_SM3 = 1;
+    int ALGORITHM_SHA256 = 2;
+    int ALGORITHM_KECCAK256 = 3;
+
+    Hash createHash() throws NoSuchAlgorithmException;
+
+    /**
+     * algorithmId 返回该策略的算法编号，用于打开持久化的树时确认算法一致。默认为 ALGORITHM_UNKNOWN，不做校验
+     *
+     * @return
+     */
+    default int algorithmId() {
+        return ALGORITHM_UNKNOWN;
+    }
+
+    /**
+     * localHash 返回当前线程可复用的 Hash 实例。调用方用完后需保持其处于重置状态（doFinal 会自动重置），
+     * 默认实现每次新建实例，实现类可覆盖为线程本地缓存
+     *
+     * @return
+     * @throws NoSuchAlgorithmException
+     */
+    default Hash localHash() throws NoSuchAlgorithmException {
+        return createHash();
+    }
+
+    /**
+     * combine 计算两个等长子节点哈希的父节点哈希并写入 out。按 sort 比较两段哈希后直接写入摘要，不产生中间数组，
+     * 结果与对 MerkleTree.sortAppend 的拼接结果做哈希相同。完成后 hash 处于重置状态
+     *
+     * @param hash
+     * @param sort
+     * @param left
+     * @param leftOff
+     * @param right
+     * @param rightOff
+     * @param len 每个子节点哈希的长度
+     * @param out
+     * @param outOff
+     * @throws IOException
+     */
+    default void combine(Hash hash, boolean sort, byte[] left, int leftOff, byte[] right, int rightOff, int len,
+                         byte[] out, int outOff) throws IOException {
+        hash.reset();
+        if (sort && compare(left, leftOff, right, rightOff, len) >= 0) {
+            hash.write(right, rightOff, len);
+            hash.write(left, leftOff, len);
+        } else {
+            hash.write(left, leftOff, len);
+            hash.write(right, rightOff, len);
+        }
+        hash.doFinal(out, outOff);
+    }
+
+    /**
+     * combineLevel 计算一层中 [from, to) 的父节点：第 i 个父节点由子节点 2i 与 2i+1 计算，2i+1 不小于 childCount
+     * 时与自身配对。子节点与父节点分别按 childWidth、parentWidth 连续存放。实现类可覆盖为批量计算
+     *
+     * @param hash
+     * @param sort
+     * @param children
+     * @param childCount
+     * @param childWidth
+     * @param parents
+     * @param parentWidth
+     * @param from
+     * @param to
+     * @throws IOException
+     */
+    default void combineLevel(Hash hash, boolean sort, byte[] children, int childCount, int childWidth,
+                              byte[] parents, int parentWidth, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            int left = 2 * i;
+            int right = left + 1 < childCount ? left + 1 : left;
+            combine(hash, sort, children, left * childWidth, children, right * childWidth, childWidth,
+                    parents, i * parentWidth);
+        }
+    }
+
+    /**
+     * combine 计算两个子节点哈希的父节点哈希，返回新数组
+     *
+     * @param hash
+     * @param sort
+     * @param left
+     * @param right
+     * @return
+     * @throws IOException
+     */
+    default byte[] combine(Hash hash, boolean sort, byte[] left, byte[] right) throws IOException {
+        if (left.length != right.length) {
+            // 长度不同时无法逐字节比较，退回到拼接后整体哈希
+            hash.reset();
+            hash.write(MerkleTree.sortedConcat(sort, left, right));
+            byte[] result = new byte[hash.size()];
+            hash.doFinal(result, 0);
+            return result;
+        }
+        byte[] result = new byte[hash.size()];
+        combine(hash, sort, left, 0, right, 0, left.length, result, 0);
+        return result;
+    }
+
+    /**
+     * compare 将两段等长字节按无符号大端整数比较，结果与 BigInteger(1, bytes) 的比较一致
+     *
+     * @param a
+     * @param aOff
+     * @param b
+     * @param bOff
+     * @param len
+     * @return
+     */
+    static int compare(byte[] a, int aOff, byte[] b, int bOff, int len) {
+        for (int i = 0; i < len; i++) {
+            int x = a[aOff + i] & 0xff;
+            int y = b[bOff + i] & 0xff;
+            if (x != y) {
+                return x < y ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+}
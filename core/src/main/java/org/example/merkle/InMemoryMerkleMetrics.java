@@ -0,0 +1,132 @@
+package org.example.merkle;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * InMemoryMerkleMetrics 在内存中累计计数并按 2 的幂分桶记录耗时直方图，便于测试断言与临时诊断
+ */
+public class InMemoryMerkleMetrics implements MerkleMetrics {
+    private final LongAdder hashInvocations = new LongAdder();
+    private final LongAdder bytesHashed = new LongAdder();
+    private final LongAdder nodesAllocated = new LongAdder();
+    private final Map<Operation, Histogram> operations = new EnumMap<>(Operation.class);
+    private final Map<Integer, Histogram> levels = new ConcurrentHashMap<>();
+
+    public InMemoryMerkleMetrics() {
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, new Histogram());
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void hashed(long invocations, long bytes) {
+        hashInvocations.add(invocations);
+        bytesHashed.add(bytes);
+    }
+
+    @Override
+    public void nodesAllocated(long count) {
+        nodesAllocated.add(count);
+    }
+
+    @Override
+    public void levelBuilt(int level, int nodes, long nanos) {
+        levels.computeIfAbsent(level, l -> new Histogram()).record(nanos);
+    }
+
+    @Override
+    public void operationCompleted(Operation operation, int leafCount, long nanos) {
+        operations.get(operation).record(nanos);
+    }
+
+    public long getHashInvocations() {
+        return hashInvocations.sum();
+    }
+
+    public long getBytesHashed() {
+        return bytesHashed.sum();
+    }
+
+    public long getNodesAllocated() {
+        return nodesAllocated.sum();
+    }
+
+    public Histogram getHistogram(Operation operation) {
+        return operations.get(operation);
+    }
+
+    /**
+     * getLevelHistogram 返回第 level 层构建耗时的直方图，该层从未构建过时返回 null
+     *
+     * @param level
+     * @return
+     */
+    public Histogram getLevelHistogram(int level) {
+        return levels.get(level);
+    }
+
+    /**
+     * Histogram 是按 2 的幂分桶的耗时直方图，第 k 个桶统计 [2^(k-1), 2^k) 纳秒的样本
+     */
+    public static final class Histogram {
+        private final long[] buckets = new long[64];
+        private long count;
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max;
+
+        synchronized void record(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets[64 - Long.numberOfLeadingZeros(value)]++;
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getTotalNanos() {
+            return sum;
+        }
+
+        public synchronized long getMinNanos() {
+            return count == 0 ? 0 : min;
+        }
+
+        public synchronized long getMaxNanos() {
+            return max;
+        }
+
+        /**
+         * getPercentileNanos 返回第 percentile 百分位所在桶的上界，不超过最大值；没有样本时返回 0
+         *
+         * @param percentile 0 到 100
+         * @return
+         */
+        public synchronized long getPercentileNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100 * count);
+            long seen = 0;
+            for (int k = 0; k < buckets.length; k++) {
+                seen += buckets[k];
+                if (seen >= Math.max(1, rank)) {
+                    return k == 0 ? 0 : Math.min(max, (1L << k) - 1);
+                }
+            }
+            return max;
+        }
+    }
+}
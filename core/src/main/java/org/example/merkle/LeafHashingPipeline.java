@@ -0,0 +1,178 @@
+package org.example.merkle;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * LeafHashingPipeline 让读取、哈希与建树重叠进行：调用线程读取叶子并提交到 executor 计算 calculateHash，
+ * 已完成的哈希按叶子顺序交给下游（如 AppendOnlyMerkleBuilder）。同时在途的叶子不超过 maxInFlight 个，
+ * 达到上限时提交方阻塞等待最早的叶子完成，从而对数据源施加背压，内存占用与数据集大小无关。
+ * executor 可以是固定大小的线程池；在 JDK 21 及以上运行时也可以传入虚拟线程执行器，适合 Content 由文件或慢速存储支撑的情况
+ */
+public class LeafHashingPipeline {
+    private final ExecutorService executor;
+    private final int maxInFlight;
+
+    private LeafHashingPipeline(ExecutorService executor, int maxInFlight) {
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * newPipeline 创建流水线，executor 由调用方管理生命周期
+     *
+     * @param executor
+     * @param maxInFlight 同时在途（已提交但尚未交给下游）的最大叶子数
+     * @return
+     */
+    public static LeafHashingPipeline newPipeline(ExecutorService executor, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in-flight leaves must be positive: " + maxInFlight);
+        }
+        return new LeafHashingPipeline(executor, maxInFlight);
+    }
+
+    /**
+     * LeafHashConsumer 按叶子顺序接收计算完成的叶子哈希，总是在提交叶子的线程上调用
+     */
+    public interface LeafHashConsumer {
+        void accept(long index, byte[] leafHash) throws Exception;
+    }
+
+    /**
+     * open 打开一个推送式会话，适合由回调或发布者推送叶子的数据源：对每个叶子调用 submit，最后调用 finish
+     *
+     * @param consumer
+     * @return
+     */
+    public Session open(LeafHashConsumer consumer) {
+        return new Session(consumer);
+    }
+
+    /**
+     * buildRoot 从迭代器读取叶子，边哈希边追加到 AppendOnlyMerkleBuilder，返回与 MerkleTree.newTree 相同的根
+     *
+     * @param leaves
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public byte[] buildRoot(Iterator<Content> leaves, HashStrategy hashStrategy, boolean sort) throws Exception {
+        AppendOnlyMerkleBuilder builder = AppendOnlyMerkleBuilder.newBuilder(hashStrategy, sort);
+        feed(leaves, (index, leafHash) -> builder.appendHash(leafHash));
+        return builder.currentRoot();
+    }
+
+    /**
+     * buildCompactTree 从迭代器读取叶子，哈希完成后构建紧凑树，可用于生成默克尔路径
+     *
+     * @param leaves
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public CompactTree buildCompactTree(Iterator<Content> leaves, HashStrategy hashStrategy, boolean sort)
+            throws Exception {
+        List<byte[]> leafHashes = new ArrayList<>();
+        feed(leaves, (index, leafHash) -> leafHashes.add(leafHash));
+        return CompactTree.build(leafHashes, hashStrategy, sort);
+    }
+
+    /**
+     * feed 从迭代器读取所有叶子并按顺序交给 consumer
+     *
+     * @param leaves
+     * @param consumer
+     * @return 叶子数
+     * @throws Exception
+     */
+    public long feed(Iterator<Content> leaves, LeafHashConsumer consumer) throws Exception {
+        Session session = open(consumer);
+        try {
+            while (leaves.hasNext()) {
+                session.submit(leaves.next());
+            }
+            return session.finish();
+        } finally {
+            session.cancel();
+        }
+    }
+
+    /**
+     * Session 是一次推送式的摄入。submit 与 finish 必须在同一个线程上调用
+     */
+    public final class Session {
+        private final LeafHashConsumer consumer;
+        private final ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>();
+        private long submitted;
+        private long delivered;
+
+        private Session(LeafHashConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        /**
+         * submit 提交一个叶子；在途叶子达到上限时阻塞，直到最早的叶子完成并交给下游。
+         * 每次提交后也会把已完成的队首叶子交给下游
+         *
+         * @param content
+         * @throws Exception 叶子哈希或下游抛出的异常
+         */
+        public void submit(Content content) throws Exception {
+            while (inFlight.size() >= maxInFlight) {
+                deliver(inFlight.peekFirst());
+            }
+            inFlight.addLast(executor.submit(content::calculateHash));
+            submitted++;
+            while (!inFlight.isEmpty() && inFlight.peekFirst().isDone()) {
+                deliver(inFlight.peekFirst());
+            }
+        }
+
+        /**
+         * finish 等待所有在途叶子完成并交给下游
+         *
+         * @return 叶子数
+         * @throws Exception
+         */
+        public long finish() throws Exception {
+            while (!inFlight.isEmpty()) {
+                deliver(inFlight.peekFirst());
+            }
+            return submitted;
+        }
+
+        /**
+         * cancel 取消尚未完成的叶子，出错后调用以释放 executor
+         */
+        public void cancel() {
+            for (Future<byte[]> future : inFlight) {
+                future.cancel(true);
+            }
+            inFlight.clear();
+        }
+
+        private void deliver(Future<byte[]> future) throws Exception {
+            byte[] leafHash;
+            try {
+                leafHash = future.get();
+            } catch (ExecutionException e) {
+                cancel();
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+            inFlight.removeFirst();
+            consumer.accept(delivered++, leafHash);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.merkle;
+
+/**
+ * LeafRange 表示连续的叶子下标区间 [start, end)
+ */
+public class LeafRange {
+    private final int start;
+    private final int end;
+
+    public LeafRange(int start, int end) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Invalid leaf range [" + start + ", " + end + ")");
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public int size() {
+        return end - start;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LeafRange)) {
+            return false;
+        }
+        LeafRange other = (LeafRange) o;
+        return start == other.start && end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start + end;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ")";
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.merkle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LocalSyncPeer 将同一进程中的 MerkleTree 作为同步对端
+ */
+public class LocalSyncPeer implements MerkleSyncPeer {
+    private final MerkleTree tree;
+
+    public LocalSyncPeer(MerkleTree tree) {
+        this.tree = tree;
+    }
+
+    @Override
+    public int leafCount() {
+        return tree.getCompactTree().getLeafCount();
+    }
+
+    @Override
+    public List<byte[]> getHashes(int level, int[] indices) {
+        CompactTree compactTree = tree.getCompactTree();
+        List<byte[]> hashes = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            hashes.add(compactTree.getHash(level, index));
+        }
+        return hashes;
+    }
+}
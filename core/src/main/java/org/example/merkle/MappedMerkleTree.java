@@ -0,0 +1,139 @@
+package org.example.merkle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MappedMerkleTree 直接在 MerkleTreeFile 映射的页上提供根与默克尔路径查询，各层哈希不会整体拷贝到堆上。
+ * 实例由 MerkleTreeFile.open 创建，使用完毕后需 close
+ */
+public class MappedMerkleTree implements Closeable {
+    private final FileChannel channel;
+    private final MappedRegion[] levels;
+    private final long[] counts;
+    private final int[] widths;
+    private final long leafCount;
+    private final boolean sort;
+    private final MappedRegion leafIndex;
+
+    MappedMerkleTree(FileChannel channel, MappedRegion[] levels, long[] counts, int[] widths, long leafCount,
+                     boolean sort, MappedRegion leafIndex) {
+        this.channel = channel;
+        this.levels = levels;
+        this.counts = counts;
+        this.widths = widths;
+        this.leafCount = leafCount;
+        this.sort = sort;
+        this.leafIndex = leafIndex;
+    }
+
+    public byte[] getMerkleRoot() {
+        return getHash(levels.length - 1, 0);
+    }
+
+    /**
+     * getHash 返回第 level 层第 index 个节点哈希的副本
+     *
+     * @param level
+     * @param index
+     * @return
+     */
+    public byte[] getHash(int level, long index) {
+        if (index < 0 || index >= counts[level]) {
+            throw new IndexOutOfBoundsException("Level " + level + " index: " + index);
+        }
+        byte[] hash = new byte[widths[level]];
+        levels[level].get(index, 0, hash, 0, hash.length);
+        return hash;
+    }
+
+    /**
+     * getMerklePath 返回第 index 个叶子的默克尔路径，格式与 MerkleTree.getMerklePath 相同
+     *
+     * @param index
+     * @return
+     */
+    public MerklePathResult getMerklePath(long index) {
+        if (index < 0 || index >= leafCount) {
+            throw new IndexOutOfBoundsException("Leaf index: " + index);
+        }
+        List<byte[]> merklePath = new ArrayList<>(levels.length - 1);
+        List<Integer> indexes = new ArrayList<>(levels.length - 1);
+        long current = index;
+        for (int level = 0; level < levels.length - 1; level++) {
+            long sibling = current ^ 1;
+            merklePath.add(getHash(level, sibling < counts[level] ? sibling : current));
+            indexes.add(current % 2 == 0 ? 1 : 0);
+            current /= 2;
+        }
+        return new MerklePathResult(merklePath, indexes);
+    }
+
+    /**
+     * getMerklePath 返回给定叶子哈希的默克尔路径，叶子不存在时返回 null；需要文件中带有叶子索引
+     *
+     * @param leafHash
+     * @return
+     */
+    public MerklePathResult getMerklePath(byte[] leafHash) {
+        long index = indexOf(leafHash);
+        return index < 0 ? null : getMerklePath(index);
+    }
+
+    /**
+     * indexOf 在映射的叶子索引上二分查找，返回给定叶子哈希第一次出现的下标，不存在时返回 -1
+     *
+     * @param leafHash
+     * @return
+     */
+    public long indexOf(byte[] leafHash) {
+        if (leafIndex == null) {
+            throw new IllegalStateException("Merkle tree file has no leaf index");
+        }
+        if (leafHash.length != widths[0]) {
+            return -1;
+        }
+        long low = 0;
+        long high = leafIndex.getEntryCount();
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (leafIndex.compare(mid, leafHash) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low < leafIndex.getEntryCount() && leafIndex.compare(low, leafHash) == 0) {
+            return leafIndex.getLong(low, widths[0]);
+        }
+        return -1;
+    }
+
+    public long getLeafCount() {
+        return leafCount;
+    }
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    public long getLevelSize(int level) {
+        return counts[level];
+    }
+
+    public boolean hasLeafIndex() {
+        return leafIndex != null;
+    }
+
+    public boolean isSort() {
+        return sort;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
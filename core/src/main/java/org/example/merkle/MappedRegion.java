@@ -0,0 +1,68 @@
+package org.example.merkle;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * MappedRegion 将文件中一段由定长条目组成的区域只读映射到内存。单个 MappedByteBuffer 不能超过 2GB，
+ * 因此按条目边界切成若干段，读取时直接访问映射页，不拷贝整段数据到堆上
+ */
+final class MappedRegion {
+    // 每段映射的最大字节数
+    private static final long MAX_SEGMENT = 1L << 30;
+
+    private final MappedByteBuffer[] segments;
+    private final int entrySize;
+    private final long entriesPerSegment;
+    private final long entryCount;
+
+    MappedRegion(FileChannel channel, long offset, long entryCount, int entrySize) throws IOException {
+        this.entrySize = entrySize;
+        this.entryCount = entryCount;
+        this.entriesPerSegment = Math.max(1, MAX_SEGMENT / entrySize);
+        int segmentCount = (int) ((entryCount + entriesPerSegment - 1) / entriesPerSegment);
+        this.segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long first = i * entriesPerSegment;
+            long entries = Math.min(entriesPerSegment, entryCount - first);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + first * entrySize, entries * entrySize);
+        }
+    }
+
+    long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * get 将第 entry 个条目中从 from 开始的 len 个字节读入 dst
+     */
+    void get(long entry, int from, byte[] dst, int dstOff, int len) {
+        MappedByteBuffer segment = segments[(int) (entry / entriesPerSegment)];
+        int position = (int) (entry % entriesPerSegment) * entrySize + from;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = segment.get(position + i);
+        }
+    }
+
+    long getLong(long entry, int from) {
+        MappedByteBuffer segment = segments[(int) (entry / entriesPerSegment)];
+        return segment.getLong((int) (entry % entriesPerSegment) * entrySize + from);
+    }
+
+    /**
+     * compare 将第 entry 个条目的前 key.length 个字节与 key 按无符号字节序比较
+     */
+    int compare(long entry, byte[] key) {
+        MappedByteBuffer segment = segments[(int) (entry / entriesPerSegment)];
+        int position = (int) (entry % entriesPerSegment) * entrySize;
+        for (int i = 0; i < key.length; i++) {
+            int x = segment.get(position + i) & 0xff;
+            int y = key[i] & 0xff;
+            if (x != y) {
+                return x < y ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.merkle;
+
+/**
+ * MerkleMetrics 是库内热点路径的指标接口。MerkleTree 与 MeteredHashStrategy 向它报告哈希次数、哈希字节数、
+ * 新建节点数以及各操作与每层构建的耗时。默认使用 NOOP，isEnabled 返回 false 时调用方不读取时钟也不调用其余方法。
+ * 实现必须是线程安全的，并行构建时会在多个线程上调用
+ */
+public interface MerkleMetrics {
+    /** NOOP 不记录任何指标 */
+    MerkleMetrics NOOP = new MerkleMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void hashed(long invocations, long bytes) {
+        }
+
+        @Override
+        public void nodesAllocated(long count) {
+        }
+
+        @Override
+        public void levelBuilt(int level, int nodes, long nanos) {
+        }
+
+        @Override
+        public void operationCompleted(Operation operation, int leafCount, long nanos) {
+        }
+    };
+
+    /**
+     * Operation 是被计时的操作
+     */
+    enum Operation {
+        BUILD_TREE,
+        GET_MERKLE_PATH,
+        VERIFY_CONTENT,
+        VERIFY_TREE
+    }
+
+    /**
+     * isEnabled 为 false 时调用方跳过计时
+     *
+     * @return
+     */
+    boolean isEnabled();
+
+    /**
+     * hashed 记录 invocations 次哈希计算，共写入 bytes 个字节
+     *
+     * @param invocations
+     * @param bytes
+     */
+    void hashed(long invocations, long bytes);
+
+    /**
+     * nodesAllocated 记录新建的 Node 对象数
+     *
+     * @param count
+     */
+    void nodesAllocated(long count);
+
+    /**
+     * levelBuilt 记录构建第 level 层（第 0 层为叶子）的 nodes 个节点所用的时间
+     *
+     * @param level
+     * @param nodes
+     * @param nanos
+     */
+    void levelBuilt(int level, int nodes, long nanos);
+
+    /**
+     * operationCompleted 记录一次操作所用的时间
+     *
+     * @param operation
+     * @param leafCount 操作时树的叶子数
+     * @param nanos
+     */
+    void operationCompleted(Operation operation, int leafCount, long nanos);
+}
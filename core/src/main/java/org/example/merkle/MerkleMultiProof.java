@@ -0,0 +1,113 @@
+package org.example.merkle;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MerkleMultiProof 一次证明多个叶子：只包含重建根所缺的最少兄弟哈希，以及每一步合并所用的标记。
+ * 标记为 true 时与队列中的下一个已知节点合并，为 false 时与 proof 中的下一个哈希合并。
+ * 叶子按下标升序排列，sort 为 true 的树可直接交给 OpenZeppelin 的 MerkleProof.multiProofVerify 验证。
+ */
+public class MerkleMultiProof {
+    private int[] indices;
+    private List<byte[]> leaves;
+    private List<byte[]> proof;
+    private List<Boolean> proofFlags;
+
+    public MerkleMultiProof(int[] indices, List<byte[]> leaves, List<byte[]> proof, List<Boolean> proofFlags) {
+        this.indices = indices;
+        this.leaves = leaves;
+        this.proof = proof;
+        this.proofFlags = proofFlags;
+    }
+
+    /**
+     * verify 由叶子、proof 与标记重建根并与 root 比较。sort 为 false 时依据叶子下标判断左右顺序
+     *
+     * @param root
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public boolean verify(byte[] root, HashStrategy hashStrategy, boolean sort) throws Exception {
+        int leavesLen = leaves.size();
+        int flagsLen = proofFlags.size();
+        if (leavesLen != indices.length || leavesLen + proof.size() != flagsLen + 1) {
+            return false;
+        }
+
+        // hashes 与 positions 组成一个先进先出队列：先消费叶子，再消费依次生成的父节点
+        byte[][] hashes = new byte[flagsLen][];
+        int[] positions = new int[flagsLen];
+        int leafPos = 0;
+        int hashPos = 0;
+        int proofPos = 0;
+        Hash hash = hashStrategy.localHash();
+        for (int i = 0; i < flagsLen; i++) {
+            byte[] a;
+            int position;
+            if (leafPos < leavesLen) {
+                position = indices[leafPos];
+                a = leaves.get(leafPos++);
+            } else if (hashPos < i) {
+                position = positions[hashPos];
+                a = hashes[hashPos++];
+            } else {
+                return false;
+            }
+
+            byte[] b;
+            if (proofFlags.get(i)) {
+                if (leafPos < leavesLen) {
+                    b = leaves.get(leafPos++);
+                } else if (hashPos < i) {
+                    b = hashes[hashPos++];
+                } else {
+                    return false;
+                }
+            } else if (proofPos < proof.size()) {
+                b = proof.get(proofPos++);
+            } else {
+                return false;
+            }
+
+            hashes[i] = position % 2 == 0
+                    ? hashStrategy.combine(hash, sort, a, b)
+                    : hashStrategy.combine(hash, sort, b, a);
+            positions[i] = position / 2;
+        }
+
+        byte[] calculated;
+        if (flagsLen > 0) {
+            if (hashPos != flagsLen - 1 || leafPos != leavesLen || proofPos != proof.size()) {
+                return false;
+            }
+            calculated = hashes[flagsLen - 1];
+        } else {
+            calculated = leavesLen > 0 ? leaves.get(0) : proof.get(0);
+        }
+        return Arrays.equals(root, calculated);
+    }
+
+    /**
+     * getIndices 返回被证明叶子的下标，升序且与 getLeaves 一一对应
+     *
+     * @return
+     */
+    public int[] getIndices() {
+        return indices;
+    }
+
+    public List<byte[]> getLeaves() {
+        return leaves;
+    }
+
+    public List<byte[]> getProof() {
+        return proof;
+    }
+
+    public List<Boolean> getProofFlags() {
+        return proofFlags;
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.merkle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MerklePathResult 依次存储深度节点哈希，与是左节点还是右节点。
+ * 实例不可变：构造时拷贝两个列表，getter 返回只读列表，因此可以在线程之间共享（如 MerkleProofCache 的缓存项）。
+ * 列表中的哈希数组不做拷贝，调用方不得修改
+ */
+public final class MerklePathResult {
+    private final List<byte[]> merklePath;
+    private final List<Integer> index;
+
+    public MerklePathResult(List<byte[]> merklePath, List<Integer> index) {
+        this.merklePath = Collections.unmodifiableList(new ArrayList<>(merklePath));
+        this.index = Collections.unmodifiableList(new ArrayList<>(index));
+    }
+
+    public List<byte[]> getMerklePath() {
+        return merklePath;
+    }
+
+    public List<Integer> getIndex() {
+        return index;
+    }
+}
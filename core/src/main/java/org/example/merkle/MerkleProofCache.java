@@ -0,0 +1,209 @@
+package org.example.merkle;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MerkleProofCache 是按叶子下标缓存默克尔路径的有界 LRU 缓存。缓存按下标的低位分为若干段，每段各自加锁并按 LRU 淘汰，
+ * 不同段的读取互不阻塞；未命中时的路径计算在锁外进行。按叶子哈希查询时先经叶子索引换算为下标，因此两种查询共享同一份缓存。
+ * <p>
+ * 失效规则：叶子 i 的路径由其每一层祖先的兄弟组成。任意两个不同叶子的路径在某一层汇合，汇合层之下二者的祖先互为兄弟，
+ * 因此更新叶子 j 必然改变其余每个叶子的路径；而 j 自己的路径只有在某一层与自身配对（奇数节点重复）时才会改变。
+ * 所以一批更新 U 之后，只有 U 恰好为 {i} 且 i 的路径上没有自身配对时，i 的缓存路径才保持有效，其余全部失效。
+ * <p>
+ * 缓存项是不可变的 MerklePathResult，命中时直接返回共享实例，不做拷贝；调用方不得修改其中的哈希数组
+ */
+public class MerkleProofCache {
+    // 分段数的上限，必须是 2 的幂
+    private static final int MAX_SEGMENTS = 16;
+
+    private final int maxEntries;
+    private final Segment[] segments;
+    private final int segmentMask;
+    // 每次失效加一，计算期间发生失效的路径不放入缓存
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    MerkleProofCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        // 分段数不超过容量，每段容量取整后总容量不超过 maxEntries
+        int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxEntries));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(maxEntries / segmentCount);
+        }
+        this.segmentMask = segmentCount - 1;
+    }
+
+    /**
+     * Segment 是一段按访问顺序淘汰的 LinkedHashMap，所有访问都在该段的锁下进行
+     */
+    private final class Segment extends LinkedHashMap<Integer, MerklePathResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, MerklePathResult> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private Segment segmentFor(int index) {
+        return segments[index & segmentMask];
+    }
+
+    /**
+     * get 返回第 index 个叶子的路径，未命中时由 tree 计算并放入缓存
+     */
+    MerklePathResult get(int index, CompactTree tree) {
+        Segment segment = segmentFor(index);
+        MerklePathResult path;
+        synchronized (segment) {
+            path = segment.get(index);
+        }
+        if (path != null) {
+            hits.increment();
+            return path;
+        }
+        misses.increment();
+        long observed = generation.get();
+        path = tree.getMerklePath(index);
+        synchronized (segment) {
+            if (generation.get() == observed) {
+                segment.put(index, path);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * invalidate 在 tree 中更新了 sortedIndices 对应的叶子之后，移除路径发生变化的缓存项
+     */
+    void invalidate(int[] sortedIndices, CompactTree tree) {
+        if (sortedIndices.length == 0) {
+            return;
+        }
+        generation.incrementAndGet();
+        int survivorIndex = sortedIndices.length == 1 && !selfPaired(sortedIndices[0], tree) ? sortedIndices[0] : -1;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                MerklePathResult survivor = survivorIndex >= 0 && segment == segmentFor(survivorIndex)
+                        ? segment.get(survivorIndex) : null;
+                invalidations.add(segment.size() - (survivor == null ? 0 : 1));
+                segment.clear();
+                if (survivor != null) {
+                    segment.put(survivorIndex, survivor);
+                }
+            }
+        }
+    }
+
+    /**
+     * selfPaired 判断第 index 个叶子的路径上是否有与自身配对的一层，此时路径中含有该叶子自己的哈希或祖先
+     */
+    private static boolean selfPaired(int index, CompactTree tree) {
+        if (index == tree.getLeafCount() - 1 && tree.getLeafCount() % 2 == 1) {
+            // 第 0 层末尾补齐的重复叶子
+            return true;
+        }
+        int current = index;
+        for (int level = 0; level < tree.getLevelCount() - 1; level++) {
+            if (tree.siblingOf(level, current) == current) {
+                return true;
+            }
+            current /= 2;
+        }
+        return false;
+    }
+
+    /**
+     * clear 清空缓存，用于整树重建
+     */
+    void clear() {
+        generation.incrementAndGet();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                invalidations.add(segment.size());
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * contains 返回第 index 个叶子的路径是否在缓存中，不影响访问顺序与统计
+     *
+     * @param index
+     * @return
+     */
+    public boolean contains(int index) {
+        Segment segment = segmentFor(index);
+        synchronized (segment) {
+            // containsKey 不改变访问顺序
+            return segment.containsKey(index);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * getInvalidations 返回因更新或重建而失效的缓存项总数
+     *
+     * @return
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    /**
+     * getHitRate 返回命中率，没有查询时返回 0
+     *
+     * @return
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,220 @@
+package org.example.merkle;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MerkleProofCodec 定义单叶子默克尔路径的紧凑二进制格式，所有哈希等长：
+ * <pre>
+ * 头部     version(1) | hashWidth(1) | depth(2，大端无符号)
+ * 方向位   ceil(depth / 8) 字节，第 i 层对应第 i / 8 个字节的第 i % 8 位（低位在前），1 表示兄弟节点在右侧
+ * 兄弟哈希 depth 个 hashWidth 字节的哈希，自叶子向根依次存放
+ * </pre>
+ * 编码直接写入调用方提供的 ByteBuffer；verify 在缓冲区中原地读取兄弟哈希，不为每个哈希分配数组，也不移动缓冲区的 position
+ */
+public final class MerkleProofCodec {
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 4;
+
+    private MerkleProofCodec() {
+    }
+
+    /**
+     * encodedLength 返回 depth 层、哈希宽度为 hashWidth 的路径编码后的字节数
+     *
+     * @param depth
+     * @param hashWidth
+     * @return
+     */
+    public static int encodedLength(int depth, int hashWidth) {
+        return HEADER_SIZE + (depth + 7) / 8 + depth * hashWidth;
+    }
+
+    /**
+     * encode 将路径写入 out 的当前位置，写完后 position 移到编码末尾
+     *
+     * @param path
+     * @param out
+     */
+    public static void encode(MerklePathResult path, ByteBuffer out) {
+        List<byte[]> merklePath = path.getMerklePath();
+        List<Integer> index = path.getIndex();
+        int depth = merklePath.size();
+        if (index.size() != depth) {
+            throw new IllegalArgumentException("Got " + depth + " hashes for " + index.size() + " directions");
+        }
+        int width = depth == 0 ? 0 : merklePath.get(0).length;
+        writeHeader(out, depth, width);
+        int bits = 0;
+        for (int i = 0; i < depth; i++) {
+            if (index.get(i) == 1) {
+                bits |= 1 << (i % 8);
+            }
+            if (i % 8 == 7 || i == depth - 1) {
+                out.put((byte) bits);
+                bits = 0;
+            }
+        }
+        for (byte[] sibling : merklePath) {
+            if (sibling.length != width) {
+                throw new IllegalArgumentException("Sibling hash has length " + sibling.length + ", expected " + width);
+            }
+            out.put(sibling);
+        }
+    }
+
+    /**
+     * encode 直接从紧凑树的层数据写出第 index 个叶子的路径，不构造 MerklePathResult
+     *
+     * @param tree
+     * @param index
+     * @param out
+     */
+    public static void encode(CompactTree tree, int index, ByteBuffer out) {
+        if (index < 0 || index >= tree.getLeafCount()) {
+            throw new IndexOutOfBoundsException("Leaf index: " + index);
+        }
+        int depth = tree.getLevelCount() - 1;
+        int width = tree.getHashWidth(0);
+        for (int level = 1; level < depth; level++) {
+            if (tree.getHashWidth(level) != width) {
+                throw new IllegalArgumentException("Leaf hashes and node hashes differ in length");
+            }
+        }
+        writeHeader(out, depth, width);
+        int bits = 0;
+        for (int level = 0; level < depth; level++) {
+            if ((index >> level) % 2 == 0) {
+                bits |= 1 << (level % 8);
+            }
+            if (level % 8 == 7 || level == depth - 1) {
+                out.put((byte) bits);
+                bits = 0;
+            }
+        }
+        int current = index;
+        for (int level = 0; level < depth; level++) {
+            out.put(tree.levelData(level), tree.siblingOf(level, current) * width, width);
+            current /= 2;
+        }
+    }
+
+    private static void writeHeader(ByteBuffer out, int depth, int width) {
+        if (depth > 0xffff || width > 0xff) {
+            throw new IllegalArgumentException("Path too large to encode: depth " + depth + ", width " + width);
+        }
+        if (out.remaining() < encodedLength(depth, width)) {
+            throw new IllegalArgumentException("Buffer has " + out.remaining() + " bytes, need "
+                    + encodedLength(depth, width));
+        }
+        out.put((byte) VERSION);
+        out.put((byte) width);
+        out.putShort((short) depth);
+    }
+
+    /**
+     * decode 将 in 当前位置的编码解析为 MerklePathResult，position 移到编码末尾
+     *
+     * @param in
+     * @return
+     */
+    public static MerklePathResult decode(ByteBuffer in) {
+        int start = in.position();
+        int depth = checkedDepth(in, start);
+        if (depth < 0) {
+            throw new IllegalArgumentException("Malformed merkle proof");
+        }
+        int width = in.get(start + 1) & 0xff;
+        int hashes = start + HEADER_SIZE + (depth + 7) / 8;
+        List<byte[]> merklePath = new ArrayList<>(depth);
+        List<Integer> index = new ArrayList<>(depth);
+        for (int i = 0; i < depth; i++) {
+            index.add(direction(in, start, i));
+            byte[] sibling = new byte[width];
+            in.position(hashes + i * width);
+            in.get(sibling);
+            merklePath.add(sibling);
+        }
+        in.position(start + encodedLength(depth, width));
+        return new MerklePathResult(merklePath, index);
+    }
+
+    /**
+     * verify 校验 proof 当前位置的编码路径能把 leafHash 合并为 root。堆缓冲区直接按偏移读取兄弟哈希；
+     * 直接缓冲区每次调用只分配一个暂存数组。格式错误时返回 false
+     *
+     * @param proof
+     * @param root
+     * @param leafHash
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public static boolean verify(ByteBuffer proof, byte[] root, byte[] leafHash, HashStrategy hashStrategy,
+                                 boolean sort) throws Exception {
+        int start = proof.position();
+        int depth = checkedDepth(proof, start);
+        int width = depth < 0 ? -1 : proof.get(start + 1) & 0xff;
+        if (depth < 0 || (depth > 0 && leafHash.length != width)) {
+            return false;
+        }
+        Hash hash = hashStrategy.localHash();
+        if (depth > 0 && hash.size() != width) {
+            return false;
+        }
+
+        int hashes = start + HEADER_SIZE + (depth + 7) / 8;
+        byte[] source;
+        int base;
+        if (proof.hasArray()) {
+            source = proof.array();
+            base = proof.arrayOffset() + hashes;
+        } else {
+            source = new byte[width];
+            base = -1;
+        }
+        byte[] current = leafHash;
+        byte[] a = new byte[hash.size()];
+        byte[] b = new byte[hash.size()];
+        for (int i = 0; i < depth; i++) {
+            int siblingOff;
+            if (base >= 0) {
+                siblingOff = base + i * width;
+            } else {
+                for (int j = 0; j < width; j++) {
+                    source[j] = proof.get(hashes + i * width + j);
+                }
+                siblingOff = 0;
+            }
+            byte[] out = current == a ? b : a;
+            if (direction(proof, start, i) == 1) {
+                hashStrategy.combine(hash, sort, current, 0, source, siblingOff, width, out, 0);
+            } else {
+                hashStrategy.combine(hash, sort, source, siblingOff, current, 0, width, out, 0);
+            }
+            current = out;
+        }
+        return current.length == root.length && HashStrategy.compare(root, 0, current, 0, root.length) == 0;
+    }
+
+    /**
+     * checkedDepth 校验 start 处的头部与长度，返回层数，格式错误时返回 -1
+     */
+    private static int checkedDepth(ByteBuffer in, int start) {
+        if (in.limit() - start < HEADER_SIZE || in.get(start) != VERSION) {
+            return -1;
+        }
+        int width = in.get(start + 1) & 0xff;
+        int depth = in.getShort(start + 2) & 0xffff;
+        if (in.limit() - start < encodedLength(depth, width)) {
+            return -1;
+        }
+        return depth;
+    }
+
+    private static int direction(ByteBuffer in, int start, int level) {
+        return (in.get(start + HEADER_SIZE + level / 8) >> (level % 8)) & 1;
+    }
+}
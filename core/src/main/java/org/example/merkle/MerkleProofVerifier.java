@@ -0,0 +1,108 @@
+package org.example.merkle;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * MerkleProofVerifier 无需整棵树，只凭可信的默克尔根校验 MerklePathResult：从叶子哈希开始沿路径依次合并兄弟哈希，
+ * 结果等于根即证明有效
+ */
+public final class MerkleProofVerifier {
+
+    private MerkleProofVerifier() {
+    }
+
+    /**
+     * verify 校验内容在以 root 为根的树中
+     *
+     * @param root
+     * @param content
+     * @param path
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public static boolean verify(byte[] root, Content content, MerklePathResult path,
+                                 HashStrategy hashStrategy, boolean sort) throws Exception {
+        return verify(root, content.calculateHash(), path, hashStrategy, sort);
+    }
+
+    /**
+     * verify 校验叶子哈希在以 root 为根的树中
+     *
+     * @param root
+     * @param leafHash
+     * @param path
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public static boolean verify(byte[] root, byte[] leafHash, MerklePathResult path,
+                                 HashStrategy hashStrategy, boolean sort) throws Exception {
+        Hash hash = hashStrategy.localHash();
+        return verify(root, leafHash, path, hashStrategy, hash, new byte[hash.size()], new byte[hash.size()], sort);
+    }
+
+    /**
+     * verify 依次合并兄弟哈希，中间结果在 a、b 两个缓冲区之间交替存放，每个节点不再分配数组
+     */
+    private static boolean verify(byte[] root, byte[] leafHash, MerklePathResult path, HashStrategy hashStrategy,
+                                  Hash hash, byte[] a, byte[] b, boolean sort) throws Exception {
+        List<byte[]> merklePath = path.getMerklePath();
+        List<Integer> index = path.getIndex();
+        if (merklePath.size() != index.size()) {
+            return false;
+        }
+        byte[] current = leafHash;
+        int len = leafHash.length;
+        for (int i = 0; i < merklePath.size(); i++) {
+            byte[] sibling = merklePath.get(i);
+            if (sibling.length != len) {
+                return false;
+            }
+            byte[] out = current == a ? b : a;
+            // 1 表示兄弟节点在右侧，0 表示在左侧
+            if (index.get(i) == 1) {
+                hashStrategy.combine(hash, sort, current, 0, sibling, 0, len, out, 0);
+            } else {
+                hashStrategy.combine(hash, sort, sibling, 0, current, 0, len, out, 0);
+            }
+            current = out;
+            len = out.length;
+        }
+        return len == root.length && HashStrategy.compare(root, 0, current, 0, len) == 0;
+    }
+
+    /**
+     * verifyAll 在 pool 上并行校验一批证明，每个工作线程使用自己的 Hash 实例。返回值与输入一一对应
+     *
+     * @param root
+     * @param leafHashes
+     * @param paths
+     * @param hashStrategy
+     * @param sort
+     * @param pool
+     * @return
+     * @throws Exception
+     */
+    public static boolean[] verifyAll(byte[] root, List<byte[]> leafHashes, List<MerklePathResult> paths,
+                                      HashStrategy hashStrategy, boolean sort, ForkJoinPool pool) throws Exception {
+        if (leafHashes.size() != paths.size()) {
+            throw new IllegalArgumentException("Got " + leafHashes.size() + " leaves for " + paths.size() + " paths");
+        }
+        byte[][] leaves = leafHashes.toArray(new byte[0][]);
+        MerklePathResult[] proofs = paths.toArray(new MerklePathResult[0]);
+        boolean[] results = new boolean[leaves.length];
+        ParallelHashing.forEachRange(pool, 0, leaves.length, (from, to) -> {
+            Hash hash = hashStrategy.localHash();
+            byte[] a = new byte[hash.size()];
+            byte[] b = new byte[hash.size()];
+            for (int i = from; i < to; i++) {
+                results[i] = verify(root, leaves[i], proofs[i], hashStrategy, hash, a, b, sort);
+            }
+        });
+        return results;
+    }
+}
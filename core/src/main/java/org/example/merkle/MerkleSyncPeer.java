@@ -0,0 +1,27 @@
+package org.example.merkle;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * MerkleSyncPeer 是树对比与同步中的对端：按需返回指定层若干节点的哈希，只传输对比所需的哈希
+ */
+public interface MerkleSyncPeer {
+    /**
+     * leafCount 返回对端树的叶子数
+     *
+     * @return
+     * @throws IOException
+     */
+    int leafCount() throws IOException;
+
+    /**
+     * getHashes 返回对端树第 level 层给定下标节点的哈希，顺序与 indices 一致
+     *
+     * @param level
+     * @param indices
+     * @return
+     * @throws IOException
+     */
+    List<byte[]> getHashes(int level, int[] indices) throws IOException;
+}
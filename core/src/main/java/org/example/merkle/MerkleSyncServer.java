@@ -0,0 +1,171 @@
+package org.example.merkle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MerkleSyncServer 通过 TCP 将一棵 MerkleTree 作为同步对端提供给 RemoteSyncPeer。
+ * 协议为请求/应答，所有整数为大端序：
+ * <pre>
+ * 叶子数请求  op=1                                 应答 leafCount(4)
+ * 哈希请求    op=2 | level(4) | n(4) | index(4)*n    应答 n(4) | 每个哈希 width(4) | bytes
+ * </pre>
+ * 每个哈希请求最多 MAX_HASHES_PER_REQUEST 个下标，且不超过该层节点数；同时服务的连接数有上限，
+ * 超出时新连接被立即关闭。请求不合法时断开该连接。服务期间不得更新该树
+ */
+public class MerkleSyncServer implements Closeable {
+    static final int OP_LEAF_COUNT = 1;
+    static final int OP_HASHES = 2;
+    public static final int MAX_HASHES_PER_REQUEST = 1 << 16;
+    public static final int DEFAULT_MAX_CONNECTIONS = 16;
+    // 应答中单个哈希的最大字节数，客户端据此拒绝异常应答
+    static final int MAX_HASH_WIDTH = 1024;
+
+    private final MerkleTree tree;
+    private final LocalSyncPeer peer;
+    private final ServerSocket serverSocket;
+    private final ThreadPoolExecutor handlers;
+
+    private MerkleSyncServer(MerkleTree tree, ServerSocket serverSocket, int maxConnections) {
+        this.tree = tree;
+        this.peer = new LocalSyncPeer(tree);
+        this.serverSocket = serverSocket;
+        // 不排队：所有处理线程都忙时拒绝新连接
+        this.handlers = new ThreadPoolExecutor(0, maxConnections, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread handler = new Thread(runnable, "merkle-sync-handler");
+                    handler.setDaemon(true);
+                    return handler;
+                });
+    }
+
+    /**
+     * start 在本机回环地址的 port 端口（0 表示随机端口）上开始服务，最多同时服务 DEFAULT_MAX_CONNECTIONS 个连接
+     *
+     * @param tree
+     * @param port
+     * @return
+     * @throws IOException
+     */
+    public static MerkleSyncServer start(MerkleTree tree, int port) throws IOException {
+        return start(tree, port, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * start 在本机回环地址的 port 端口（0 表示随机端口）上开始服务，每个连接占用一个处理线程，
+     * 同时最多服务 maxConnections 个连接
+     *
+     * @param tree
+     * @param port
+     * @param maxConnections
+     * @return
+     * @throws IOException
+     */
+    public static MerkleSyncServer start(MerkleTree tree, int port, int maxConnections) throws IOException {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("Max connections must be positive: " + maxConnections);
+        }
+        MerkleSyncServer server = new MerkleSyncServer(tree,
+                new ServerSocket(port, 50, InetAddress.getLoopbackAddress()), maxConnections);
+        Thread acceptor = new Thread(server::acceptLoop, "merkle-sync-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                try {
+                    handlers.execute(() -> serve(socket));
+                } catch (RejectedExecutionException e) {
+                    closeQuietly(socket);
+                }
+            } catch (IOException e) {
+                // 服务器关闭时 accept 会抛出异常，结束循环
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            while (true) {
+                int op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (op == OP_LEAF_COUNT) {
+                    out.writeInt(peer.leafCount());
+                } else if (op == OP_HASHES) {
+                    int level = in.readInt();
+                    int[] indices = new int[checkedCount(level, in.readInt())];
+                    for (int i = 0; i < indices.length; i++) {
+                        indices[i] = in.readInt();
+                    }
+                    List<byte[]> hashes = peer.getHashes(level, indices);
+                    out.writeInt(hashes.size());
+                    for (byte[] hash : hashes) {
+                        out.writeInt(hash.length);
+                        out.write(hash);
+                    }
+                } else {
+                    throw new IOException("Unknown sync op: " + op);
+                }
+                out.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            // 连接异常只影响当前客户端，直接断开
+        }
+    }
+
+    /**
+     * checkedCount 校验哈希请求的层号与下标个数，不合法时抛出 IOException 以断开连接
+     */
+    private int checkedCount(int level, int count) throws IOException {
+        CompactTree compactTree = tree.getCompactTree();
+        if (level < 0 || level >= compactTree.getLevelCount()) {
+            throw new IOException("Invalid level: " + level);
+        }
+        if (count < 0 || count > Math.min(compactTree.getLevelSize(level), MAX_HASHES_PER_REQUEST)) {
+            throw new IOException("Invalid hash count " + count + " for level " + level);
+        }
+        return count;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // 忽略
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        handlers.shutdownNow();
+    }
+}
@@ -0,0 +1,861 @@
+package org.example.merkle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MerkleTree 是树的容器。它包含一个指向树的根的指针，一个指向叶节点的指针列表，以及默克尔根。
+ * 所有层的哈希保存在 CompactTree 中；紧凑模式下不创建 Node 对象，此时 getRoot 与 getLeafs 返回 null。
+ */
+public class MerkleTree {
+    // 估算的单个 Node 对象的开销（对象头、7 个引用字段与 4 个基本类型字段），哈希保存在 CompactTree 中，用于内存统计
+    private static final int NODE_OVERHEAD = 16 + 7 * 8 + 16;
+    // 叶子数或某层节点数低于该值时保持顺序构建
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+
+    private Node root;
+    private byte[] merkleRoot;
+    private List<Node> leafs;
+    private Map<HashKey, Integer> leafIndex;
+    // 出现多于一次的叶子哈希的额外出现次数，通常为空，用于更新叶子时维护 leafIndex
+    private Map<HashKey, Integer> duplicateCounts;
+    private CompactTree compactTree;
+    private List<Content> contents;
+    private HashStrategy hashStrategy;
+    private boolean sort;
+    private boolean compact;
+    private ForkJoinPool forkJoinPool;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    // 上次校验之后被 updateLeaves 修改过的叶子
+    private BitSet dirtyLeaves = new BitSet();
+    // 新建的树使用的指标接收者，用于统计工厂方法中的首次构建
+    private static volatile MerkleMetrics defaultMetrics = MerkleMetrics.NOOP;
+    private MerkleMetrics metrics = defaultMetrics;
+    private volatile MerkleProofCache proofCache;
+
+    private MerkleTree(HashStrategy hashStrategy, boolean sort, boolean compact) {
+        this.hashStrategy = hashStrategy;
+        this.sort = sort;
+        this.compact = compact;
+    }
+
+    /**
+     * newTree 使用content接口构造默克尔树
+     *
+     * @param contentList
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public static MerkleTree newTree(List<Content> contentList, HashStrategy hashStrategy,
+                                     boolean sort) throws Exception {
+        return new MerkleTree(hashStrategy, sort, false).buildTree(contentList);
+    }
+
+    /**
+     * newTree 在给定的 ForkJoinPool 上并行构造默克尔树，叶子与各层中间节点分块并行哈希，根与顺序构建逐字节相同
+     *
+     * @param contentList
+     * @param hashStrategy
+     * @param sort
+     * @param forkJoinPool
+     * @return
+     * @throws Exception
+     */
+    public static MerkleTree newTree(List<Content> contentList, HashStrategy hashStrategy,
+                                     boolean sort, ForkJoinPool forkJoinPool) throws Exception {
+        MerkleTree tree = new MerkleTree(hashStrategy, sort, false);
+        tree.forkJoinPool = forkJoinPool;
+        return tree.buildTree(contentList);
+    }
+
+    /**
+     * newCompactTree 构造只使用按层连续数组存储哈希的默克尔树，不创建任何 Node 对象，根与 newTree 一致
+     *
+     * @param contentList
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public static MerkleTree newCompactTree(List<Content> contentList, HashStrategy hashStrategy,
+                                            boolean sort) throws Exception {
+        return new MerkleTree(hashStrategy, sort, true).buildTree(contentList);
+    }
+
+    /**
+     * newCompactTree 在给定的 ForkJoinPool 上并行构造紧凑模式的默克尔树
+     *
+     * @param contentList
+     * @param hashStrategy
+     * @param sort
+     * @param forkJoinPool
+     * @return
+     * @throws Exception
+     */
+    public static MerkleTree newCompactTree(List<Content> contentList, HashStrategy hashStrategy,
+                                            boolean sort, ForkJoinPool forkJoinPool) throws Exception {
+        MerkleTree tree = new MerkleTree(hashStrategy, sort, true);
+        tree.forkJoinPool = forkJoinPool;
+        return tree.buildTree(contentList);
+    }
+
+    /**
+     * verifyTree 验证该树是否符合默克尔树标准
+     *
+     * @return
+     * @throws Exception
+     */
+    public boolean verifyTree() throws Exception {
+        long start = startTimer();
+        try {
+            if (compact) {
+                CompactTree calculated = CompactTree.build(hashContents(contents), hashStrategy, sort,
+                        forkJoinPool, parallelThreshold);
+                return Arrays.equals(merkleRoot, calculated.getRoot());
+            }
+            byte[] calculatedMerkleRoot = root.verifyNode(sort);
+            return Arrays.equals(merkleRoot, calculatedMerkleRoot);
+        } finally {
+            stopTimer(MerkleMetrics.Operation.VERIFY_TREE, start);
+        }
+    }
+
+    /**
+     * verifyTree 逐层校验按层存储的所有哈希（getMerklePath 等查询所用的数据），设置了 ForkJoinPool 时
+     * 叶子与节点数不小于 parallelThreshold 的层在 pool 上并行校验。trustLeafHashes 为 true 时信任已缓存的叶子哈希，
+     * 只校验内部节点；否则先用 Content.calculateHash 重新计算每个叶子。校验通过后清除所有脏标记
+     *
+     * @param trustLeafHashes
+     * @return 第一个不一致节点的位置
+     * @throws Exception
+     */
+    public TreeVerifyResult verifyTree(boolean trustLeafHashes) throws Exception {
+        long start = startTimer();
+        try {
+            int leafCount = compactTree.getLeafCount();
+            if (!trustLeafHashes) {
+                int failed;
+                if (forkJoinPool != null && leafCount >= parallelThreshold) {
+                    AtomicInteger first = new AtomicInteger(Integer.MAX_VALUE);
+                    ParallelHashing.forEachRange(forkJoinPool, 0, leafCount, (from, to) -> {
+                        if (from < first.get()) {
+                            int mismatch = findLeafMismatch(from, to);
+                            if (mismatch >= 0) {
+                                first.accumulateAndGet(mismatch, Math::min);
+                            }
+                        }
+                    });
+                    failed = first.get() == Integer.MAX_VALUE ? -1 : first.get();
+                } else {
+                    failed = findLeafMismatch(0, leafCount);
+                }
+                if (failed >= 0) {
+                    return TreeVerifyResult.failure(0, failed);
+                }
+            }
+            TreeVerifyResult result = compactTree.verifyLevels(forkJoinPool, parallelThreshold);
+            if (result.isValid() && !compactTree.hashEquals(compactTree.getLevelCount() - 1, 0, merkleRoot)) {
+                result = TreeVerifyResult.failure(compactTree.getLevelCount() - 1, 0);
+            }
+            if (result.isValid()) {
+                dirtyLeaves.clear();
+            }
+            return result;
+        } finally {
+            stopTimer(MerkleMetrics.Operation.VERIFY_TREE, start);
+        }
+    }
+
+    /**
+     * verifyDirty 增量校验：只校验上次校验之后被 updateLeaf/updateLeaves 修改过的叶子及其到根路径上的节点，
+     * 共享的祖先只校验一次。校验通过后清除脏标记。rebuildTree 重新开始计数
+     *
+     * @param trustLeafHashes 为 true 时不重新计算被修改叶子的内容哈希
+     * @return 第一个不一致节点的位置
+     * @throws Exception
+     */
+    public TreeVerifyResult verifyDirty(boolean trustLeafHashes) throws Exception {
+        long start = startTimer();
+        try {
+            int[] indices = dirtyLeaves.stream().toArray();
+            if (!trustLeafHashes) {
+                for (int index : indices) {
+                    if (findLeafMismatch(index, index + 1) >= 0) {
+                        return TreeVerifyResult.failure(0, index);
+                    }
+                }
+            }
+            TreeVerifyResult result = compactTree.verifyPaths(indices);
+            if (result.isValid() && !compactTree.hashEquals(compactTree.getLevelCount() - 1, 0, merkleRoot)) {
+                result = TreeVerifyResult.failure(compactTree.getLevelCount() - 1, 0);
+            }
+            if (result.isValid()) {
+                dirtyLeaves.clear();
+            }
+            return result;
+        } finally {
+            stopTimer(MerkleMetrics.Operation.VERIFY_TREE, start);
+        }
+    }
+
+    /**
+     * getDirtyCount 返回上次校验之后被修改过的叶子数
+     *
+     * @return
+     */
+    public int getDirtyCount() {
+        return dirtyLeaves.cardinality();
+    }
+
+    private int findLeafMismatch(int from, int to) throws Exception {
+        for (int i = from; i < to; i++) {
+            Content content = compact ? contents.get(i) : leafs.get(i).getContent();
+            if (!compactTree.hashEquals(0, i, content.calculateHash())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * VerifyContent 指示给定的内容是否在树中，以及该内容的哈希值是否有效。如果期望的默克尔根等于在给定内容的关键路径上计算的默克尔根，则返回true。如果有效则返回true，否则返回false。
+     *
+     * @param content
+     * @return
+     * @throws Exception
+     */
+    public boolean verifyContent(Content content) throws Exception {
+        return verifyContent(content.calculateHash());
+    }
+
+    /**
+     * verifyContent 通过叶子哈希在索引中定位叶子并校验其到根的路径
+     *
+     * @param leafHash
+     * @return
+     * @throws Exception
+     */
+    public boolean verifyContent(byte[] leafHash) throws Exception {
+        int index = indexOf(leafHash);
+        return index >= 0 && verifyContent(index);
+    }
+
+    /**
+     * verifyContent 校验第 index 个叶子到根路径上每个父节点的哈希
+     *
+     * @param index
+     * @return
+     * @throws Exception
+     */
+    public boolean verifyContent(int index) throws Exception {
+        long start = startTimer();
+        try {
+            if (compact) {
+                return verifyCompactContent(index);
+            }
+            Node currentParent = leafAt(index).getParent();
+            while (currentParent != null) {
+                byte[] leftHash = currentParent.getLeft().calculateNodeHash(sort);
+                byte[] rightHash = currentParent.getRight().calculateNodeHash(sort);
+                byte[] calculatedHash = hashStrategy.combine(hashStrategy.localHash(), sort, leftHash, rightHash);
+
+                if (!currentParent.hashEquals(calculatedHash)) {
+                    return false;
+                }
+
+                currentParent = currentParent.getParent();
+            }
+            return true;
+        } finally {
+            stopTimer(MerkleMetrics.Operation.VERIFY_CONTENT, start);
+        }
+    }
+
+    private boolean verifyCompactContent(int index) throws Exception {
+        // 与 Node 模式一致，最底层的两个叶子使用内容重新计算哈希，其余祖先使用已存储的子节点哈希
+        int left = index & ~1;
+        for (int i = left; i <= left + 1; i++) {
+            int leaf = i < contents.size() ? i : contents.size() - 1;
+            if (!compactTree.hashEquals(0, i, contents.get(leaf).calculateHash())) {
+                return false;
+            }
+        }
+        return compactTree.verifyPath(index);
+    }
+
+    /**
+     * RebuildTreeWith替换树的内容并进行完整的重建；虽然树的根将被替换，但MerkleTree在此操作中完全存活下来
+     *
+     * @param newContentList
+     * @return
+     * @throws Exception
+     */
+    public MerkleTree rebuildTree(List<Content> newContentList) throws Exception {
+        return this.buildTree(newContentList);
+    }
+
+    /**
+     * updateLeaf 替换第 index 个叶子的内容，只重新计算该叶子到根路径上的节点
+     *
+     * @param index
+     * @param content
+     * @return
+     * @throws Exception
+     */
+    public MerkleTree updateLeaf(int index, Content content) throws Exception {
+        return updateLeaves(Collections.singletonMap(index, content));
+    }
+
+    /**
+     * updateLeaves 批量替换叶子内容，只重新计算受影响的路径，多个叶子共享的祖先在一批中只计算一次。
+     * 奇数个叶子时最后一个叶子的重复节点会同步更新。所有新内容先计算并校验哈希，全部成功后才修改树，
+     * 因此下标越界、内容为 null 或 calculateHash 抛出异常时树保持不变
+     *
+     * @param updates 叶子下标到新内容的映射
+     * @return
+     * @throws Exception
+     */
+    public MerkleTree updateLeaves(Map<Integer, Content> updates) throws Exception {
+        for (Map.Entry<Integer, Content> entry : updates.entrySet()) {
+            Integer index = entry.getKey();
+            if (index == null || index < 0 || index >= compactTree.getLeafCount()) {
+                throw new IndexOutOfBoundsException("Leaf index: " + index);
+            }
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException("Content for leaf " + index + " is null");
+            }
+        }
+        TreeMap<Integer, Content> sorted = new TreeMap<>(updates);
+
+        int[] indices = new int[sorted.size()];
+        byte[][] newHashes = new byte[sorted.size()][];
+        int width = compactTree.getHashWidth(0);
+        int n = 0;
+        for (Map.Entry<Integer, Content> entry : sorted.entrySet()) {
+            byte[] newHash = entry.getValue().calculateHash();
+            if (newHash.length != width) {
+                throw new IllegalArgumentException("Leaf hash has length " + newHash.length + ", expected " + width);
+            }
+            indices[n] = entry.getKey();
+            newHashes[n++] = newHash;
+        }
+
+        for (int i = 0; i < indices.length; i++) {
+            int index = indices[i];
+            byte[] oldHash = compactTree.getHash(0, index);
+            compactTree.setLeafHash(index, newHashes[i]);
+            unindexLeaf(oldHash, index);
+            indexLeaf(newHashes[i], index);
+            if (compact) {
+                contents.set(index, sorted.get(index));
+            }
+            dirtyLeaves.set(index);
+        }
+        compactTree.rehash(indices);
+        if (proofCache != null) {
+            proofCache.invalidate(indices, compactTree);
+        }
+
+        if (!compact) {
+            updateNodes(sorted, indices);
+        }
+        merkleRoot = compactTree.getRoot();
+        return this;
+    }
+
+    private void updateNodes(Map<Integer, Content> sorted, int[] indices) {
+        for (int i = 0; i < indices.length; i++) {
+            int index = indices[i];
+            Node leaf = leafs.get(index);
+            leaf.setContent(sorted.get(index));
+            leaf.attach(compactTree, 0, index);
+            if (index + 1 < leafs.size() && leafs.get(index + 1).isDuplicate()) {
+                leafs.get(index + 1).setContent(sorted.get(index));
+                leafs.get(index + 1).attach(compactTree, 0, index + 1);
+            }
+
+            // 节点直接读取 CompactTree 中已经重新计算的哈希；这里只让被 setHash 替换过的祖先重新指向层数组
+            Node parent = leaf.getParent();
+            for (int level = 1; parent != null; level++) {
+                if (i > 0 && indices[i - 1] >> level == index >> level) {
+                    break;
+                }
+                parent.attach(compactTree, level, index >> level);
+                parent = parent.getParent();
+            }
+        }
+    }
+
+    private void indexLeaf(byte[] leafHash, int index) {
+        HashKey key = new HashKey(leafHash);
+        Integer existing = leafIndex.get(key);
+        if (existing == null) {
+            leafIndex.put(key, index);
+            return;
+        }
+        duplicateCounts.merge(key, 1, Integer::sum);
+        if (index < existing) {
+            leafIndex.put(key, index);
+        }
+    }
+
+    private void unindexLeaf(byte[] leafHash, int index) {
+        HashKey key = new HashKey(leafHash);
+        Integer extra = duplicateCounts.get(key);
+        if (extra == null) {
+            leafIndex.remove(key);
+            return;
+        }
+        if (extra == 1) {
+            duplicateCounts.remove(key);
+        } else {
+            duplicateCounts.put(key, extra - 1);
+        }
+        if (leafIndex.get(key) == index) {
+            // 仅在内容重复时发生：重新找到该哈希剩余的最小下标
+            for (int i = 0; i < compactTree.getLeafCount(); i++) {
+                if (i != index && compactTree.hashEquals(0, i, leafHash)) {
+                    leafIndex.put(key, i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * getMerklePath 返回给定内容的默克尔路径和索引
+     * @param content
+     * @return
+     * @throws Exception
+     */
+    public MerklePathResult getMerklePath(Content content) throws Exception {
+        return getMerklePath(content.calculateHash());
+    }
+
+    /**
+     * getMerklePath 返回给定叶子哈希的默克尔路径和索引，叶子不存在时返回 null
+     *
+     * @param leafHash
+     * @return
+     */
+    public MerklePathResult getMerklePath(byte[] leafHash) {
+        int index = indexOf(leafHash);
+        return index < 0 ? null : getMerklePath(index);
+    }
+
+    /**
+     * getMerklePath 返回第 index 个叶子的默克尔路径和索引
+     *
+     * @param index
+     * @return
+     */
+    public MerklePathResult getMerklePath(int index) {
+        long start = startTimer();
+        try {
+            MerkleProofCache cache = proofCache;
+            return cache == null ? compactTree.getMerklePath(index) : cache.get(index, compactTree);
+        } finally {
+            stopTimer(MerkleMetrics.Operation.GET_MERKLE_PATH, start);
+        }
+    }
+
+    /**
+     * getRangeProof 返回证明下标在 [from, to) 内的连续叶子的区间证明，大小只与树高有关，与区间长度无关
+     *
+     * @param from 第一个叶子的下标（包含）
+     * @param to 末尾叶子之后的下标（不包含）
+     * @return
+     */
+    public RangeProof getRangeProof(int from, int to) {
+        return compactTree.getRangeProof(from, to);
+    }
+
+    /**
+     * getSubtreeRoot 返回覆盖叶子 [index * 2^level, (index + 1) * 2^level) 的对齐子树的根
+     *
+     * @param level
+     * @param index
+     * @return
+     */
+    public byte[] getSubtreeRoot(int level, int index) {
+        return compactTree.getSubtreeRoot(level, index);
+    }
+
+    /**
+     * getMultiProof 返回同时证明多个叶子的紧凑证明，近根处共享的兄弟哈希只出现一次
+     *
+     * @param indices
+     * @return
+     */
+    public MerkleMultiProof getMultiProof(int... indices) {
+        return compactTree.getMultiProof(indices);
+    }
+
+    /**
+     * getMultiProof 返回同时证明多个内容的紧凑证明，任一内容不在树中时返回 null
+     *
+     * @param contentList
+     * @return
+     * @throws Exception
+     */
+    public MerkleMultiProof getMultiProof(List<Content> contentList) throws Exception {
+        int[] indices = new int[contentList.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = indexOf(contentList.get(i).calculateHash());
+            if (indices[i] < 0) {
+                return null;
+            }
+        }
+        return getMultiProof(indices);
+    }
+
+    /**
+     * indexOf 返回给定叶子哈希第一次出现的叶子下标，不存在时返回 -1。重复填充的叶子不会被索引
+     *
+     * @param leafHash
+     * @return
+     */
+    public int indexOf(byte[] leafHash) {
+        Integer index = leafIndex.get(new HashKey(leafHash));
+        return index == null ? -1 : index;
+    }
+
+    private Node leafAt(int index) {
+        if (index < 0 || index >= leafs.size() || leafs.get(index).isDuplicate()) {
+            throw new IndexOutOfBoundsException("Leaf index: " + index);
+        }
+        return leafs.get(index);
+    }
+
+    private void buildLeafIndex(CompactTree compactTree) {
+        leafIndex = new HashMap<>(compactTree.getLeafCount() * 4 / 3 + 1);
+        duplicateCounts = new HashMap<>();
+        for (int i = 0; i < compactTree.getLeafCount(); i++) {
+            indexLeaf(compactTree.getHash(0, i), i);
+        }
+    }
+
+    private MerkleTree buildTree(List<Content> contentList) throws Exception {
+        long start = startTimer();
+        try {
+            if (contentList == null || contentList.isEmpty()) {
+                throw new IllegalArgumentException("Cannot construct tree with no content");
+            }
+
+            List<byte[]> leafHashes = hashLeaves(contentList);
+            compactTree = CompactTree.build(leafHashes, hashStrategy, sort, forkJoinPool, parallelThreshold, metrics);
+
+            if (compact) {
+                root = null;
+                leafs = null;
+                contents = new ArrayList<>(contentList);
+            } else {
+                List<Node> leafNodes = new ArrayList<>(leafHashes.size() + 1);
+                for (int i = 0; i < contentList.size(); i++) {
+                    leafNodes.add(new Node(this, null, null, compactTree, 0, i, contentList.get(i), true, false));
+                }
+
+                // 注意该默克尔树如果遇到奇节点的处理是使用重复节点
+                if (leafNodes.size() % 2 == 1) {
+                    Node lastLeaf = leafNodes.get(leafNodes.size() - 1);
+                    leafNodes.add(new Node(this, null, null, compactTree, 0, leafNodes.size(), lastLeaf.getContent(),
+                            true, true));
+                }
+
+                metrics.nodesAllocated(leafNodes.size());
+                root = buildIntermediate(leafNodes, 1);
+                leafs = leafNodes;
+                contents = null;
+            }
+            buildLeafIndex(compactTree);
+            merkleRoot = compactTree.getRoot();
+            dirtyLeaves = new BitSet();
+            if (proofCache != null) {
+                proofCache.clear();
+            }
+
+            return this;
+        } finally {
+            stopTimer(MerkleMetrics.Operation.BUILD_TREE, start);
+        }
+    }
+
+    private List<byte[]> hashLeaves(List<Content> contentList) throws Exception {
+        long start = startTimer();
+        List<byte[]> leafHashes = hashContents(contentList);
+        if (metrics.isEnabled()) {
+            metrics.levelBuilt(0, contentList.size(), System.nanoTime() - start);
+        }
+        return leafHashes;
+    }
+
+    private List<byte[]> hashContents(List<Content> contentList) throws Exception {
+        if (forkJoinPool == null || contentList.size() < parallelThreshold) {
+            List<byte[]> leafHashes = new ArrayList<>(contentList.size());
+            for (Content content : contentList) {
+                leafHashes.add(content.calculateHash());
+            }
+            return leafHashes;
+        }
+
+        Content[] items = contentList.toArray(new Content[0]);
+        byte[][] leafHashes = new byte[items.length][];
+        ParallelHashing.forEachRange(forkJoinPool, 0, items.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                leafHashes[i] = items[i].calculateHash();
+            }
+        });
+        return Arrays.asList(leafHashes);
+    }
+
+    private long startTimer() {
+        return metrics.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    private void stopTimer(MerkleMetrics.Operation operation, long start) {
+        if (metrics.isEnabled()) {
+            metrics.operationCompleted(operation, compactTree == null ? 0 : compactTree.getLeafCount(),
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * buildIntermediate 是一个辅助函数，对于给定的叶节点列表，它构建树的中间和根级别。返回树的结果根节点。
+     * 节点哈希已由 CompactTree 按层计算，这里只负责按同样的配对规则连接 Node
+     *
+     * @param nodes
+     * @param level 新建节点所在的层
+     * @return
+     */
+    private Node buildIntermediate(List<Node> nodes, int level) {
+        List<Node> newNodes = new ArrayList<>((nodes.size() + 1) / 2);
+        for (int i = 0; i < nodes.size(); i += 2) {
+            int right = i + 1 < nodes.size() ? i + 1 : i;
+
+            Node node = new Node(this, nodes.get(i), nodes.get(right), compactTree, level, i / 2, null, false, false);
+            nodes.get(i).setParent(node);
+            nodes.get(right).setParent(node);
+
+            newNodes.add(node);
+        }
+        metrics.nodesAllocated(newNodes.size());
+
+        if (newNodes.size() == 1) {
+            return newNodes.get(0);
+        }
+
+        return buildIntermediate(newNodes, level + 1);
+    }
+
+    /**
+     * 排序是为了确保默克尔树证明的一致性，避免由于节点顺序不同导致生成的哈希值不同，确保能与 OpenZeppelin 的 MerkleProof 合约兼容。
+     *
+     * @param sort
+     * @param a
+     * @param b
+     * @return
+     */
+    public byte[] sortAppend(boolean sort, byte[] a, byte[] b) {
+        return sortedConcat(sort, a, b);
+    }
+
+    static byte[] sortedConcat(boolean sort, byte[] a, byte[] b) {
+        if (sort && compareMagnitude(a, b) >= 0) {
+            byte[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /**
+     * compareMagnitude 按无符号大端整数比较两个任意长度的字节数组，与 new BigInteger(1, a).compareTo(new BigInteger(1, b)) 相同
+     */
+    private static int compareMagnitude(byte[] a, byte[] b) {
+        int aStart = 0;
+        while (aStart < a.length && a[aStart] == 0) {
+            aStart++;
+        }
+        int bStart = 0;
+        while (bStart < b.length && b[bStart] == 0) {
+            bStart++;
+        }
+        int aLen = a.length - aStart;
+        int bLen = b.length - bStart;
+        if (aLen != bLen) {
+            return aLen < bLen ? -1 : 1;
+        }
+        return HashStrategy.compare(a, aStart, b, bStart, aLen);
+    }
+
+    /**
+     * memoryUsage 估算树结构占用的字节数：各层哈希数组，以及非紧凑模式下的 Node 对象。不包含叶子索引与 Content 本身
+     *
+     * @return
+     */
+    public long memoryUsage() {
+        long bytes = compactTree.memoryUsage();
+        if (!compact) {
+            long nodeCount = 0;
+            for (int level = 0; level < compactTree.getLevelCount(); level++) {
+                nodeCount += compactTree.getLevelSize(level);
+            }
+            bytes += nodeCount * NODE_OVERHEAD;
+        }
+        return bytes;
+    }
+
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * setRoot 只替换 getRoot 返回的 Node，根哈希、默克尔路径、校验与叶子索引都由 CompactTree 提供，不受影响
+     *
+     * @param root
+     * @deprecated 使用 rebuildTree 或 updateLeaves 修改树
+     */
+    @Deprecated
+    public void setRoot(Node root) {
+        this.root = root;
+    }
+
+    public byte[] getMerkleRoot() {
+        return merkleRoot;
+    }
+
+    /**
+     * setMerkleRoot 只替换 getMerkleRoot 返回的值，默克尔路径与校验仍基于 CompactTree，下一次构建或更新时被覆盖
+     *
+     * @param merkleRoot
+     * @deprecated 使用 rebuildTree 或 updateLeaves 修改树
+     */
+    @Deprecated
+    public void setMerkleRoot(byte[] merkleRoot) {
+        this.merkleRoot = merkleRoot;
+    }
+
+    public List<Node> getLeafs() {
+        return leafs;
+    }
+
+    /**
+     * setLeafs 只替换 getLeafs 返回的 Node 列表，叶子索引、默克尔路径与校验仍基于 CompactTree，保持彼此一致
+     *
+     * @param leafs
+     * @deprecated 使用 rebuildTree 或 updateLeaves 修改树
+     */
+    @Deprecated
+    public void setLeafs(List<Node> leafs) {
+        this.leafs = leafs;
+    }
+
+    public HashStrategy getHashStrategy() {
+        return hashStrategy;
+    }
+
+    public void setHashStrategy(HashStrategy hashStrategy) {
+        this.hashStrategy = hashStrategy;
+    }
+
+    public CompactTree getCompactTree() {
+        return compactTree;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    /**
+     * setForkJoinPool 设置之后 rebuildTree 使用的线程池，为 null 时顺序构建
+     *
+     * @param forkJoinPool
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public static MerkleMetrics getDefaultMetrics() {
+        return defaultMetrics;
+    }
+
+    /**
+     * setDefaultMetrics 设置之后新建的树默认使用的指标接收者，为 null 时恢复为 NOOP，已有的树不受影响
+     *
+     * @param metrics
+     */
+    public static void setDefaultMetrics(MerkleMetrics metrics) {
+        defaultMetrics = metrics == null ? MerkleMetrics.NOOP : metrics;
+    }
+
+    public MerkleMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * setMetrics 设置指标接收者，为 null 时恢复为 NOOP。哈希次数与字节数需配合 MeteredHashStrategy 统计
+     *
+     * @param metrics
+     */
+    public void setMetrics(MerkleMetrics metrics) {
+        this.metrics = metrics == null ? MerkleMetrics.NOOP : metrics;
+    }
+
+    /**
+     * enableProofCache 开启容量为 maxEntries 的 LRU 路径缓存，getMerklePath 的各个重载都会经过缓存；
+     * 已开启时以新的容量重新创建
+     *
+     * @param maxEntries
+     * @return
+     */
+    public MerkleProofCache enableProofCache(int maxEntries) {
+        proofCache = new MerkleProofCache(maxEntries);
+        return proofCache;
+    }
+
+    public void disableProofCache() {
+        proofCache = null;
+    }
+
+    /**
+     * getProofCache 返回路径缓存，未开启时返回 null
+     *
+     * @return
+     */
+    public MerkleProofCache getProofCache() {
+        return proofCache;
+    }
+
+    public boolean isSort() {
+        return sort;
+    }
+
+    public void setSort(boolean sort) {
+        this.sort = sort;
+    }
+}
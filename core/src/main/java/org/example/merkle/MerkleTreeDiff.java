@@ -0,0 +1,101 @@
+package org.example.merkle;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MerkleTreeDiff 自根向下逐层对比两棵树，跳过哈希相同的子树，返回叶子不同的区间。
+ * 每层只向对端请求上一层不一致节点的子节点哈希，k 个不同叶子共需 O(k log n) 次哈希比较
+ */
+public final class MerkleTreeDiff {
+
+    private MerkleTreeDiff() {
+    }
+
+    /**
+     * diff 对比同一进程中的两棵树
+     *
+     * @param local
+     * @param remote
+     * @return 按下标升序、互不相邻的不同叶子区间
+     * @throws IOException
+     */
+    public static List<LeafRange> diff(MerkleTree local, MerkleTree remote) throws IOException {
+        return diff(local, new LocalSyncPeer(remote));
+    }
+
+    /**
+     * diff 逐层向对端请求需要的子树哈希，与本地树对比。叶子数不同时，超出较短一方的叶子整体视为不同
+     *
+     * @param local
+     * @param remote
+     * @return 按下标升序、互不相邻的不同叶子区间
+     * @throws IOException
+     */
+    public static List<LeafRange> diff(MerkleTree local, MerkleSyncPeer remote) throws IOException {
+        CompactTree tree = local.getCompactTree();
+        int localCount = tree.getLeafCount();
+        int remoteCount = remote.leafCount();
+        int common = Math.min(localCount, remoteCount);
+        boolean sameShape = localCount == remoteCount;
+
+        // 从两棵树都存在的最高层开始，该层中覆盖公共叶子的节点都是候选
+        int remoteLevels = CompactTree.levelCount((remoteCount + 1) / 2 * 2);
+        int level = Math.min(tree.getLevelCount(), remoteLevels) - 1;
+        int[] candidates = new int[(int) ((common - 1L) >> level) + 1];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = i;
+        }
+
+        List<LeafRange> ranges = new ArrayList<>();
+        for (; level >= 0 && candidates.length > 0; level--) {
+            List<byte[]> remoteHashes = remote.getHashes(level, candidates);
+            if (remoteHashes.size() != candidates.length) {
+                throw new IOException("Requested " + candidates.length + " hashes at level " + level
+                        + ", peer returned " + remoteHashes.size());
+            }
+            int[] next = new int[candidates.length * 2];
+            int nextCount = 0;
+            for (int i = 0; i < candidates.length; i++) {
+                int index = candidates[i];
+                // 叶子数不同时，覆盖到公共区间之外（含补齐的重复节点）的子树即使哈希相同也不能跳过
+                boolean comparable = sameShape || ((long) index + 1) << level <= common;
+                if (comparable && tree.hashEquals(level, index, remoteHashes.get(i))) {
+                    continue;
+                }
+                if (level == 0) {
+                    addLeaf(ranges, index);
+                    continue;
+                }
+                for (int child = 2 * index; child <= 2 * index + 1; child++) {
+                    if ((long) child << (level - 1) < common) {
+                        next[nextCount++] = child;
+                    }
+                }
+            }
+            candidates = Arrays.copyOf(next, nextCount);
+        }
+
+        if (common < Math.max(localCount, remoteCount)) {
+            addRange(ranges, common, Math.max(localCount, remoteCount));
+        }
+        return ranges;
+    }
+
+    private static void addLeaf(List<LeafRange> ranges, int index) {
+        addRange(ranges, index, index + 1);
+    }
+
+    private static void addRange(List<LeafRange> ranges, int start, int end) {
+        if (!ranges.isEmpty()) {
+            LeafRange last = ranges.get(ranges.size() - 1);
+            if (last.getEnd() == start) {
+                ranges.set(ranges.size() - 1, new LeafRange(last.getStart(), end));
+                return;
+            }
+        }
+        ranges.add(new LeafRange(start, end));
+    }
+}
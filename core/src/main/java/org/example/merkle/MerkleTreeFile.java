@@ -0,0 +1,340 @@
+package org.example.merkle;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * MerkleTreeFile 定义默克尔树的磁盘格式并负责写出与打开。所有整数均为大端序，各数据段按 8 字节对齐，便于 FileChannel.map：
+ * <pre>
+ * 文件头   magic "MKLT"(4) | version(2) | flags(2) | leafCount(8) | levelCount(4) | algorithm(2) | hashWidth(2)
+ * 层表     每层一项：count(8) | width(4) | reserved(4) | offset(8)
+ * 索引表   indexOffset(8) | indexCount(8)，没有叶子索引时均为 0
+ * 层数据   每层 count 个定长哈希连续存放，第 0 层包含奇数叶子补齐的重复叶子
+ * 叶子索引 按 (叶子哈希, 下标) 升序排列的条目：hash(width0) | index(8)
+ * </pre>
+ * algorithm 为 HashStrategy.algorithmId，hashWidth 为内部节点的哈希宽度；版本 1 的文件这两项为 0，打开时不校验。
+ * open 在映射之前校验层表与索引表中的每一项都落在文件范围内，损坏或截断的文件抛出 IOException
+ */
+public final class MerkleTreeFile {
+    static final int MAGIC = 0x4D4B4C54;
+    static final short VERSION = 2;
+    static final short MIN_VERSION = 1;
+    static final int FLAG_SORT = 1;
+    static final int FLAG_LEAF_INDEX = 1 << 1;
+    static final int HEADER_SIZE = 24;
+    static final int LEVEL_ENTRY_SIZE = 24;
+    static final int INDEX_ENTRY_SIZE = 16;
+    // leafCount 不超过 long 范围时树最多 64 层
+    static final int MAX_LEVEL_COUNT = 64;
+    static final int MAX_HASH_WIDTH = 1024;
+
+    private MerkleTreeFile() {
+    }
+
+    /**
+     * write 将树的所有层哈希写入文件，可选地附带按哈希排序的叶子索引
+     *
+     * @param tree
+     * @param path
+     * @param withLeafIndex
+     * @throws IOException
+     */
+    public static void write(MerkleTree tree, Path path, boolean withLeafIndex) throws IOException {
+        write(tree.getCompactTree(), path, withLeafIndex);
+    }
+
+    /**
+     * write 将紧凑树的所有层哈希写入文件，可选地附带按哈希排序的叶子索引
+     *
+     * @param tree
+     * @param path
+     * @param withLeafIndex
+     * @throws IOException
+     */
+    public static void write(CompactTree tree, Path path, boolean withLeafIndex) throws IOException {
+        int levelCount = tree.getLevelCount();
+        long[] counts = new long[levelCount];
+        int[] widths = new int[levelCount];
+        for (int level = 0; level < levelCount; level++) {
+            counts[level] = tree.getLevelSize(level);
+            widths[level] = tree.getHashWidth(level);
+        }
+        long indexCount = withLeafIndex ? tree.getLeafCount() : 0;
+        long[] offsets = layout(counts, widths, indexCount);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            writeHeader(out, tree.getLeafCount(), tree.isSort(), tree.getHashStrategy().algorithmId(),
+                    widths[levelCount - 1], counts, widths, offsets, indexCount);
+            long position = headerSize(levelCount);
+            for (int level = 0; level < levelCount; level++) {
+                position = pad(out, position, offsets[level]);
+                out.write(tree.levelData(level), 0, (int) (counts[level] * widths[level]));
+                position += counts[level] * widths[level];
+            }
+            if (withLeafIndex) {
+                pad(out, position, offsets[levelCount]);
+                writeLeafIndex(out, tree);
+            }
+        }
+    }
+
+    /**
+     * open 以只读方式映射树文件，只读取固定大小的文件头与层表，打开耗时与树大小无关
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static MappedMerkleTree open(Path path) throws IOException {
+        return open(path, null);
+    }
+
+    /**
+     * open 以只读方式映射树文件，并确认文件记录的算法编号与哈希宽度与 hashStrategy 一致，不一致时抛出 IOException。
+     * hashStrategy 为 null 时不校验
+     *
+     * @param path
+     * @param hashStrategy
+     * @return
+     * @throws IOException
+     */
+    public static MappedMerkleTree open(Path path, HashStrategy hashStrategy) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Truncated merkle tree file: " + path);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a merkle tree file: " + path);
+            }
+            short version = header.getShort();
+            if (version < MIN_VERSION || version > VERSION) {
+                throw new IOException("Unsupported merkle tree file version " + version + ": " + path);
+            }
+            int flags = header.getShort();
+            long leafCount = header.getLong();
+            int levelCount = header.getInt();
+            int algorithm = header.getShort() & 0xffff;
+            int hashWidth = header.getShort() & 0xffff;
+            if (leafCount <= 0) {
+                throw new IOException("Invalid leaf count " + leafCount + ": " + path);
+            }
+            if (levelCount < 2 || levelCount > MAX_LEVEL_COUNT || headerSize(levelCount) > size) {
+                throw new IOException("Invalid level count " + levelCount + ": " + path);
+            }
+            if (hashStrategy != null) {
+                checkStrategy(path, hashStrategy, algorithm, hashWidth);
+            }
+
+            ByteBuffer table = ByteBuffer.allocate(levelCount * LEVEL_ENTRY_SIZE + INDEX_ENTRY_SIZE);
+            readFully(channel, table, HEADER_SIZE);
+            table.flip();
+            long[] counts = new long[levelCount];
+            int[] widths = new int[levelCount];
+            long[] offsets = new long[levelCount];
+            for (int level = 0; level < levelCount; level++) {
+                counts[level] = table.getLong();
+                widths[level] = table.getInt();
+                table.getInt();
+                offsets[level] = table.getLong();
+                long expected = level == 0 ? (leafCount + 1) / 2 * 2 : (counts[level - 1] + 1) / 2;
+                if (counts[level] != expected) {
+                    throw new IOException("Level " + level + " has " + counts[level] + " nodes, expected "
+                            + expected + ": " + path);
+                }
+                if (widths[level] <= 0 || widths[level] > MAX_HASH_WIDTH
+                        || level > 0 && hashWidth != 0 && widths[level] != hashWidth) {
+                    throw new IOException("Invalid hash width " + widths[level] + " at level " + level + ": " + path);
+                }
+                checkRegion(path, size, levelCount, offsets[level], counts[level], widths[level]);
+            }
+            if (counts[levelCount - 1] != 1) {
+                throw new IOException("Top level has " + counts[levelCount - 1] + " nodes: " + path);
+            }
+            long indexOffset = table.getLong();
+            long indexCount = table.getLong();
+            if ((flags & FLAG_LEAF_INDEX) != 0) {
+                if (indexCount != leafCount) {
+                    throw new IOException("Leaf index has " + indexCount + " entries, expected " + leafCount
+                            + ": " + path);
+                }
+                checkRegion(path, size, levelCount, indexOffset, indexCount, widths[0] + 8);
+            }
+
+            MappedRegion[] levels = new MappedRegion[levelCount];
+            for (int level = 0; level < levelCount; level++) {
+                levels[level] = new MappedRegion(channel, offsets[level], counts[level], widths[level]);
+            }
+            MappedRegion leafIndex = (flags & FLAG_LEAF_INDEX) != 0
+                    ? new MappedRegion(channel, indexOffset, indexCount, widths[0] + 8)
+                    : null;
+            return new MappedMerkleTree(channel, levels, counts, widths, leafCount, (flags & FLAG_SORT) != 0, leafIndex);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * checkStrategy 确认文件记录的算法编号与哈希宽度与 hashStrategy 一致，文件未记录（为 0）的项不校验
+     */
+    private static void checkStrategy(Path path, HashStrategy hashStrategy, int algorithm, int hashWidth)
+            throws IOException {
+        if (algorithm != HashStrategy.ALGORITHM_UNKNOWN && algorithm != hashStrategy.algorithmId()) {
+            throw new IOException("Merkle tree file uses hash algorithm " + algorithm + ", strategy is "
+                    + hashStrategy.algorithmId() + ": " + path);
+        }
+        if (hashWidth != 0) {
+            int strategyWidth;
+            try {
+                strategyWidth = hashStrategy.localHash().size();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            if (hashWidth != strategyWidth) {
+                throw new IOException("Merkle tree file uses " + hashWidth + "-byte hashes, strategy produces "
+                        + strategyWidth + ": " + path);
+            }
+        }
+    }
+
+    /**
+     * checkRegion 确认 count 个 width 字节的条目从 offset 开始位于层表之后且不超出文件末尾
+     */
+    private static void checkRegion(Path path, long size, int levelCount, long offset, long count, int width)
+            throws IOException {
+        if (offset < headerSize(levelCount) || offset > size || count < 0 || count > (size - offset) / width) {
+            throw new IOException("Region of " + count + " entries at offset " + offset
+                    + " exceeds file size " + size + ": " + path);
+        }
+    }
+
+    /**
+     * layout 计算各层数据与叶子索引的起始偏移，返回长度为 levelCount + 1 的数组，最后一项为叶子索引偏移
+     */
+    static long[] layout(long[] counts, int[] widths, long indexCount) {
+        long[] offsets = new long[counts.length + 1];
+        long position = headerSize(counts.length);
+        for (int level = 0; level < counts.length; level++) {
+            position = align(position);
+            offsets[level] = position;
+            position += counts[level] * widths[level];
+        }
+        offsets[counts.length] = indexCount > 0 ? align(position) : 0;
+        return offsets;
+    }
+
+    static long headerSize(int levelCount) {
+        return HEADER_SIZE + (long) levelCount * LEVEL_ENTRY_SIZE + INDEX_ENTRY_SIZE;
+    }
+
+    static void writeHeader(DataOutputStream out, long leafCount, boolean sort, int algorithm, int hashWidth,
+                            long[] counts, int[] widths, long[] offsets, long indexCount) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort((sort ? FLAG_SORT : 0) | (indexCount > 0 ? FLAG_LEAF_INDEX : 0));
+        out.writeLong(leafCount);
+        out.writeInt(counts.length);
+        out.writeShort(algorithm);
+        out.writeShort(hashWidth);
+        for (int level = 0; level < counts.length; level++) {
+            out.writeLong(counts[level]);
+            out.writeInt(widths[level]);
+            out.writeInt(0);
+            out.writeLong(offsets[level]);
+        }
+        out.writeLong(offsets[counts.length]);
+        out.writeLong(indexCount);
+    }
+
+    /**
+     * pad 写入零字节直到 target 位置，返回新的位置
+     */
+    static long pad(OutputStream out, long position, long target) throws IOException {
+        while (position < target) {
+            out.write(0);
+            position++;
+        }
+        return position;
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * writeLeafIndex 按 (叶子哈希, 下标) 升序写出叶子索引。排序键为哈希前 4 字节与下标拼成的 long，
+     * 用基本类型数组排序后再对前缀相同的区间按完整哈希做插入排序，不装箱下标
+     */
+    private static void writeLeafIndex(DataOutputStream out, CompactTree tree) throws IOException {
+        int width = tree.getHashWidth(0);
+        byte[] leaves = tree.levelData(0);
+        long[] keys = new long[tree.getLeafCount()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (long) (prefix(leaves, i * width, width) ^ Integer.MIN_VALUE) << 32 | i;
+        }
+        Arrays.sort(keys);
+        int runStart = 0;
+        for (int i = 1; i <= keys.length; i++) {
+            if (i == keys.length || keys[i] >>> 32 != keys[runStart] >>> 32) {
+                sortRun(keys, runStart, i, leaves, width);
+                runStart = i;
+            }
+        }
+        for (long key : keys) {
+            int index = (int) key;
+            out.write(leaves, index * width, width);
+            out.writeLong(index);
+        }
+    }
+
+    /**
+     * prefix 返回哈希前 4 字节组成的大端整数，哈希不足 4 字节时低位补 0
+     */
+    private static int prefix(byte[] data, int offset, int width) {
+        int prefix = 0;
+        for (int i = 0; i < 4; i++) {
+            prefix = prefix << 8 | (i < width ? data[offset + i] & 0xff : 0);
+        }
+        return prefix;
+    }
+
+    /**
+     * sortRun 对前缀相同的 [from, to) 按完整哈希插入排序；区间内已按下标有序，相同哈希不需要移动
+     */
+    private static void sortRun(long[] keys, int from, int to, byte[] leaves, int width) {
+        for (int i = from + 1; i < to; i++) {
+            long key = keys[i];
+            int index = (int) key;
+            int j = i - 1;
+            while (j >= from && HashStrategy.compare(leaves, (int) keys[j] * width, leaves, index * width, width) > 0) {
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            keys[j + 1] = key;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Truncated merkle tree file");
+            }
+            position += read;
+        }
+    }
+}
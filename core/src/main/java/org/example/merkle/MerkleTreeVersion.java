@@ -0,0 +1,230 @@
+package org.example.merkle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * MerkleTreeVersion 是默克尔树的一个不可变版本。update 通过写时复制返回新版本：只新建被修改叶子到根路径上的节点，
+ * 其余子树与当前版本共享，当前版本保持不变，可以继续提供根与默克尔路径查询
+ */
+public class MerkleTreeVersion {
+    private final long version;
+    private final PersistentNode root;
+    private final int leafCount;
+    private final int levelCount;
+    private final HashStrategy hashStrategy;
+    private final boolean sort;
+    // 与本版本叶子一致的哈希到下标索引，各版本之间共享未修改的部分
+    private final PersistentLeafIndex leafIndex;
+
+    private MerkleTreeVersion(long version, PersistentNode root, PersistentLeafIndex leafIndex, int leafCount,
+                              HashStrategy hashStrategy, boolean sort) {
+        this.version = version;
+        this.root = root;
+        this.leafIndex = leafIndex;
+        this.leafCount = leafCount;
+        this.levelCount = CompactTree.levelCount((leafCount + 1) / 2 * 2);
+        this.hashStrategy = hashStrategy;
+        this.sort = sort;
+    }
+
+    /**
+     * newVersion 由内容列表构建第 0 个版本，根与 MerkleTree.newTree 相同
+     *
+     * @param contentList
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public static MerkleTreeVersion newVersion(List<Content> contentList, HashStrategy hashStrategy,
+                                               boolean sort) throws Exception {
+        return newVersion(0, contentList, hashStrategy, sort);
+    }
+
+    static MerkleTreeVersion newVersion(long version, List<Content> contentList, HashStrategy hashStrategy,
+                                        boolean sort) throws Exception {
+        if (contentList == null || contentList.isEmpty()) {
+            throw new IllegalArgumentException("Cannot construct tree with no content");
+        }
+        List<PersistentNode> nodes = new ArrayList<>(contentList.size());
+        PersistentLeafIndex leafIndex = PersistentLeafIndex.EMPTY;
+        for (Content content : contentList) {
+            byte[] leafHash = content.calculateHash();
+            nodes.add(new PersistentNode(leafHash, null, null, content));
+            leafIndex = leafIndex.add(leafHash, nodes.size() - 1);
+        }
+
+        Hash hash = hashStrategy.localHash();
+        // 叶子层奇数个时最后一个与自身配对，与补一个重复叶子的结果相同
+        do {
+            List<PersistentNode> parents = new ArrayList<>((nodes.size() + 1) / 2);
+            for (int i = 0; i < nodes.size(); i += 2) {
+                PersistentNode left = nodes.get(i);
+                PersistentNode right = i + 1 < nodes.size() ? nodes.get(i + 1) : left;
+                parents.add(new PersistentNode(hashStrategy.combine(hash, sort, left.hash, right.hash),
+                        left, right, null));
+            }
+            nodes = parents;
+        } while (nodes.size() > 1);
+        return new MerkleTreeVersion(version, nodes.get(0), leafIndex, contentList.size(), hashStrategy, sort);
+    }
+
+    /**
+     * update 返回替换了给定叶子内容的新版本，版本号加一。多个叶子共享的祖先只计算一次
+     *
+     * @param updates 叶子下标到新内容的映射
+     * @return
+     * @throws Exception
+     */
+    public MerkleTreeVersion update(Map<Integer, Content> updates) throws Exception {
+        TreeMap<Integer, Content> sorted = new TreeMap<>(updates);
+        int[] indices = new int[sorted.size()];
+        Content[] contents = new Content[sorted.size()];
+        byte[][] hashes = new byte[sorted.size()][];
+        int n = 0;
+        for (Map.Entry<Integer, Content> entry : sorted.entrySet()) {
+            Integer index = entry.getKey();
+            if (index == null || index < 0 || index >= leafCount) {
+                throw new IndexOutOfBoundsException("Leaf index: " + index);
+            }
+            indices[n] = index;
+            contents[n] = entry.getValue();
+            hashes[n] = entry.getValue().calculateHash();
+            n++;
+        }
+        if (n == 0) {
+            return this;
+        }
+        return update(indices, contents, hashes, version + 1);
+    }
+
+    /**
+     * update 以已经算好的叶子哈希生成版本号为 newVersion 的新版本，indices 必须升序、不重复且在范围内
+     */
+    MerkleTreeVersion update(int[] indices, Content[] contents, byte[][] hashes, long newVersion) throws Exception {
+        PersistentLeafIndex newIndex = leafIndex;
+        for (int i = 0; i < indices.length; i++) {
+            newIndex = newIndex.remove(leaf(indices[i]).hash, indices[i]).add(hashes[i], indices[i]);
+        }
+        PersistentNode newRoot = update(root, levelCount - 1, 0, indices, contents, hashes, 0, indices.length,
+                hashStrategy.localHash());
+        return new MerkleTreeVersion(newVersion, newRoot, newIndex, leafCount, hashStrategy, sort);
+    }
+
+    /**
+     * withVersion 返回与当前版本共享全部节点、只有版本号不同的版本
+     */
+    MerkleTreeVersion withVersion(long newVersion) {
+        return newVersion == version
+                ? this
+                : new MerkleTreeVersion(newVersion, root, leafIndex, leafCount, hashStrategy, sort);
+    }
+
+    private PersistentNode update(PersistentNode node, int level, int index, int[] indices, Content[] contents,
+                                  byte[][] hashes, int from, int to, Hash hash) throws Exception {
+        if (level == 0) {
+            return new PersistentNode(hashes[from], null, null, contents[from]);
+        }
+        // [from, mid) 落在左子树，[mid, to) 落在右子树
+        long rightStart = (2L * index + 1) << (level - 1);
+        int mid = from;
+        while (mid < to && indices[mid] < rightStart) {
+            mid++;
+        }
+        PersistentNode left = mid > from
+                ? update(node.left, level - 1, 2 * index, indices, contents, hashes, from, mid, hash)
+                : node.left;
+        PersistentNode right;
+        if (node.left == node.right) {
+            right = left;
+        } else {
+            right = to > mid
+                    ? update(node.right, level - 1, 2 * index + 1, indices, contents, hashes, mid, to, hash)
+                    : node.right;
+        }
+        return new PersistentNode(hashStrategy.combine(hash, sort, left.hash, right.hash), left, right, null);
+    }
+
+    /**
+     * getMerklePath 返回第 index 个叶子的默克尔路径，格式与 MerkleTree.getMerklePath 相同
+     *
+     * @param index
+     * @return
+     */
+    public MerklePathResult getMerklePath(int index) {
+        checkLeafIndex(index);
+        List<byte[]> merklePath = new ArrayList<>(levelCount - 1);
+        List<Integer> indexes = new ArrayList<>(levelCount - 1);
+        PersistentNode node = root;
+        for (int level = levelCount - 1; level > 0; level--) {
+            boolean right = (index >> (level - 1) & 1) == 1;
+            merklePath.add((right ? node.left : node.right).hash.clone());
+            indexes.add(right ? 0 : 1);
+            node = right ? node.right : node.left;
+        }
+        Collections.reverse(merklePath);
+        Collections.reverse(indexes);
+        return new MerklePathResult(merklePath, indexes);
+    }
+
+    public byte[] getLeafHash(int index) {
+        return leaf(index).hash.clone();
+    }
+
+    public Content getContent(int index) {
+        return leaf(index).content;
+    }
+
+    /**
+     * indexOf 返回给定叶子哈希在本版本中第一次出现的下标，不存在时返回 -1
+     *
+     * @param leafHash
+     * @return
+     */
+    public int indexOf(byte[] leafHash) {
+        return leafIndex.first(leafHash);
+    }
+
+    private PersistentNode leaf(int index) {
+        checkLeafIndex(index);
+        PersistentNode node = root;
+        for (int level = levelCount - 1; level > 0; level--) {
+            node = (index >> (level - 1) & 1) == 1 ? node.right : node.left;
+        }
+        return node;
+    }
+
+    private void checkLeafIndex(int index) {
+        if (index < 0 || index >= leafCount) {
+            throw new IndexOutOfBoundsException("Leaf index: " + index);
+        }
+    }
+
+    public byte[] getMerkleRoot() {
+        return root.hash.clone();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    public HashStrategy getHashStrategy() {
+        return hashStrategy;
+    }
+
+    public boolean isSort() {
+        return sort;
+    }
+
+    PersistentNode getRootNode() {
+        return root;
+    }
+}
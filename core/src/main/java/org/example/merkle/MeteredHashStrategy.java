@@ -0,0 +1,151 @@
+package org.example.merkle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * MeteredHashStrategy 包装另一个 HashStrategy，把每次哈希计算与写入的字节数报告给 MerkleMetrics。
+ * combine 与 combineLevel 仍交给被包装的策略，因此专用的快速路径（如 SM3NodeEngine）不受影响
+ */
+public class MeteredHashStrategy implements HashStrategy {
+    private final HashStrategy delegate;
+    private final MerkleMetrics metrics;
+    private final ThreadLocal<Hash> localHash;
+
+    private MeteredHashStrategy(HashStrategy delegate, MerkleMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.localHash = ThreadLocal.withInitial(() -> {
+            try {
+                return new MeteredHash(delegate.localHash());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * wrap 包装 delegate，metrics 为 NOOP 时直接返回 delegate
+     *
+     * @param delegate
+     * @param metrics
+     * @return
+     */
+    public static HashStrategy wrap(HashStrategy delegate, MerkleMetrics metrics) {
+        if (!metrics.isEnabled()) {
+            return delegate;
+        }
+        return new MeteredHashStrategy(delegate, metrics);
+    }
+
+    @Override
+    public Hash createHash() throws NoSuchAlgorithmException {
+        return new MeteredHash(delegate.createHash());
+    }
+
+    @Override
+    public Hash localHash() {
+        return localHash.get();
+    }
+
+    @Override
+    public int algorithmId() {
+        return delegate.algorithmId();
+    }
+
+    @Override
+    public void combine(Hash hash, boolean sort, byte[] left, int leftOff, byte[] right, int rightOff, int len,
+                        byte[] out, int outOff) throws IOException {
+        delegate.combine(unwrap(hash), sort, left, leftOff, right, rightOff, len, out, outOff);
+        metrics.hashed(1, 2L * len);
+    }
+
+    @Override
+    public byte[] combine(Hash hash, boolean sort, byte[] left, byte[] right) throws IOException {
+        byte[] result = delegate.combine(unwrap(hash), sort, left, right);
+        metrics.hashed(1, (long) left.length + right.length);
+        return result;
+    }
+
+    @Override
+    public void combineLevel(Hash hash, boolean sort, byte[] children, int childCount, int childWidth,
+                             byte[] parents, int parentWidth, int from, int to) throws IOException {
+        delegate.combineLevel(unwrap(hash), sort, children, childCount, childWidth, parents, parentWidth, from, to);
+        metrics.hashed(to - from, 2L * childWidth * (to - from));
+    }
+
+    public HashStrategy getDelegate() {
+        return delegate;
+    }
+
+    private static Hash unwrap(Hash hash) {
+        return hash instanceof MeteredHash ? ((MeteredHash) hash).hash : hash;
+    }
+
+    /**
+     * MeteredHash 统计写入的字节数，每次 sum 或 doFinal 计为一次哈希计算。sum 不改变状态，
+     * 因此只报告上次报告之后新写入的字节，同一批字节不会被重复计数
+     */
+    private final class MeteredHash implements Hash {
+        private final Hash hash;
+        // reset 之后写入的字节数
+        private long pending;
+        // pending 中已由 sum 报告过的部分
+        private long reported;
+
+        MeteredHash(Hash hash) {
+            this.hash = hash;
+        }
+
+        @Override
+        public void write(byte[] data) throws IOException {
+            hash.write(data);
+            pending += data.length;
+        }
+
+        @Override
+        public void write(byte[] data, int off, int len) throws IOException {
+            hash.write(data, off, len);
+            pending += len;
+        }
+
+        @Override
+        public void write(ByteBuffer data) throws IOException {
+            pending += data.remaining();
+            hash.write(data);
+        }
+
+        @Override
+        public byte[] sum(byte[] b) {
+            metrics.hashed(1, pending - reported);
+            reported = pending;
+            return hash.sum(b);
+        }
+
+        @Override
+        public int doFinal(byte[] out, int off) {
+            metrics.hashed(1, pending - reported);
+            pending = 0;
+            reported = 0;
+            return hash.doFinal(out, off);
+        }
+
+        @Override
+        public void reset() {
+            pending = 0;
+            reported = 0;
+            hash.reset();
+        }
+
+        @Override
+        public int size() {
+            return hash.size();
+        }
+
+        @Override
+        public int blockSize() {
+            return hash.blockSize();
+        }
+    }
+}
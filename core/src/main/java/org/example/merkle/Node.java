@@ -3,7 +3,8 @@ package org.example.merkle;
 import java.util.Arrays;
 
 /**
- * Node 表示树中的节点、根或叶。它存储指向其直接关系的指针、散列、如果是叶子则存储的内容以及其他元数据
+ * Node 表示树中的节点、根或叶。它存储指向其直接关系的指针、散列、如果是叶子则存储的内容以及其他元数据。
+ * MerkleTree 构建的节点不单独保存哈希数组，而是记录自己在 CompactTree 中的层与下标，getHash 时从层数组中拷贝
  */
 public class Node {
     private MerkleTree tree;
@@ -14,6 +15,10 @@ public class Node {
     private boolean isDuplicate;
     private byte[] hash;
     private Content content;
+    // 不为 null 时哈希保存在 slab 的第 level 层第 index 个位置
+    private CompactTree slab;
+    private int level;
+    private int index;
 
     public Node(MerkleTree tree, Node left, Node right, byte[] hash, Content content, boolean isLeaf) {
         this.tree = tree;
@@ -30,8 +35,55 @@ public class Node {
         this.isDuplicate = isDuplicate;
     }
 
+    /**
+     * Node 创建哈希保存在 CompactTree 中的节点，不持有单独的哈希数组
+     */
+    Node(MerkleTree tree, Node left, Node right, CompactTree slab, int level, int index, Content content,
+         boolean isLeaf, boolean isDuplicate) {
+        this(tree, left, right, null, content, isLeaf, isDuplicate);
+        attach(slab, level, index);
+    }
+
+    /**
+     * getHash 返回节点哈希；哈希保存在 CompactTree 中时每次返回新的副本
+     *
+     * @return
+     */
     public byte[] getHash() {
-        return hash;
+        return slab != null ? slab.getHash(level, index) : hash;
+    }
+
+    /**
+     * hashData 返回保存节点哈希的数组，不拷贝，调用方不得修改；哈希从 hashOffset 开始，长度为 hashLength
+     */
+    byte[] hashData() {
+        return slab != null ? slab.levelData(level) : hash;
+    }
+
+    int hashOffset() {
+        return slab != null ? index * slab.getHashWidth(level) : 0;
+    }
+
+    int hashLength() {
+        return slab != null ? slab.getHashWidth(level) : hash.length;
+    }
+
+    /**
+     * hashEquals 比较节点哈希是否等于给定哈希，不产生拷贝
+     */
+    boolean hashEquals(byte[] other) {
+        return hashLength() == other.length
+                && HashStrategy.compare(hashData(), hashOffset(), other, 0, other.length) == 0;
+    }
+
+    /**
+     * attach 让节点改为读取 slab 第 level 层第 index 个哈希，并释放单独保存的哈希数组
+     */
+    void attach(CompactTree slab, int level, int index) {
+        this.slab = slab;
+        this.level = level;
+        this.index = index;
+        this.hash = null;
     }
 
     public Content getContent() {
@@ -60,9 +112,8 @@ public class Node {
         byte[] leftBytes = left.verifyNode(sort);
         byte[] rightBytes = right.verifyNode(sort);
 
-        Hash hash = tree.getHashStrategy().createHash();
-        hash.write(tree.sortAppend(sort, leftBytes, rightBytes));
-        return hash.sum(null);
+        HashStrategy hashStrategy = tree.getHashStrategy();
+        return hashStrategy.combine(hashStrategy.localHash(), sort, leftBytes, rightBytes);
     }
 
     /**
@@ -77,14 +128,22 @@ public class Node {
             return content.calculateHash();
         }
 
-        Hash hash = tree.getHashStrategy().createHash();
-        hash.write(tree.sortAppend(sort, left.hash, right.hash));
-        return hash.sum(null);
+        HashStrategy hashStrategy = tree.getHashStrategy();
+        Hash hash = hashStrategy.localHash();
+        int len = left.hashLength();
+        if (len != right.hashLength()) {
+            return hashStrategy.combine(hash, sort, left.getHash(), right.getHash());
+        }
+        // 直接读取子节点所在的层数组，不拷贝子节点哈希
+        byte[] result = new byte[hash.size()];
+        hashStrategy.combine(hash, sort, left.hashData(), left.hashOffset(), right.hashData(), right.hashOffset(), len,
+                result, 0);
+        return result;
     }
 
     @Override
     public String toString() {
-        return "Leaf: " + isLeaf + " Dup: " + isDuplicate + " Hash: " + Arrays.toString(hash);
+        return "Leaf: " + isLeaf + " Dup: " + isDuplicate + " Hash: " + Arrays.toString(getHash());
     }
 
     public MerkleTree getTree() {
@@ -127,8 +186,14 @@ public class Node {
         isDuplicate = duplicate;
     }
 
+    /**
+     * setHash 设置节点单独持有的哈希，之后不再读取 CompactTree 中的值
+     *
+     * @param hash
+     */
     public void setHash(byte[] hash) {
         this.hash = hash;
+        this.slab = null;
     }
 
     public void setContent(Content content) {
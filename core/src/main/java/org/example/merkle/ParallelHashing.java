@@ -0,0 +1,96 @@
+package org.example.merkle;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ParallelHashing 在 ForkJoinPool 上按区间切块并行执行哈希计算的辅助类
+ */
+final class ParallelHashing {
+    // 每个任务至少处理的元素数，避免任务过碎
+    private static final int MIN_CHUNK = 512;
+
+    private ParallelHashing() {
+    }
+
+    /**
+     * RangeAction 处理 [from, to) 区间，每次调用运行在单一线程上，可在调用内复用 Hash 实例
+     */
+    interface RangeAction {
+        void run(int from, int to) throws Exception;
+    }
+
+    /**
+     * forEachRange 将 [from, to) 切分为若干块并在 pool 上并行执行，任一块抛出的异常会原样抛出
+     *
+     * @param pool
+     * @param from
+     * @param to
+     * @param action
+     * @throws Exception
+     */
+    static void forEachRange(ForkJoinPool pool, int from, int to, RangeAction action) throws Exception {
+        forEachRange(pool, from, to, MIN_CHUNK, action);
+    }
+
+    /**
+     * forEachRange 同上，每块至少 minChunk 个元素；单个元素开销很大（如整块文件数据）时可以取较小的值
+     *
+     * @param pool
+     * @param from
+     * @param to
+     * @param minChunk
+     * @param action
+     * @throws Exception
+     */
+    static void forEachRange(ForkJoinPool pool, int from, int to, int minChunk, RangeAction action) throws Exception {
+        int chunk = Math.max(minChunk, (to - from) / (pool.getParallelism() * 4));
+        try {
+            pool.invoke(new RangeTask(from, to, chunk, action));
+        } catch (TaskFailedException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof TaskFailedException) {
+                cause = cause.getCause();
+            }
+            throw (Exception) cause;
+        }
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final RangeAction action;
+
+        RangeTask(int from, int to, int chunk, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                try {
+                    action.run(from, to);
+                } catch (Exception e) {
+                    throw new TaskFailedException(e);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, chunk, action), new RangeTask(mid, to, chunk, action));
+        }
+    }
+
+    private static final class TaskFailedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        TaskFailedException(Exception cause) {
+            super(cause);
+        }
+    }
+}
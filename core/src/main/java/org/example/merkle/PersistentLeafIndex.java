@@ -0,0 +1,202 @@
+package org.example.merkle;
+
+import java.util.Arrays;
+
+/**
+ * PersistentLeafIndex 是不可变的叶子哈希到叶子下标的映射，按 HashKey 的 hashCode 每 5 位分一层组成哈希前缀树。
+ * add 与 remove 只复制从根到被修改条目的 O(log32 n) 个节点，其余节点与旧索引共享，因此每个 MerkleTreeVersion
+ * 都可以持有与自己完全一致的索引。同一哈希出现多次时保存全部下标（升序），第一次出现的下标总在首位
+ */
+final class PersistentLeafIndex {
+    static final PersistentLeafIndex EMPTY = new PersistentLeafIndex(new TrieNode(0, new Object[0]));
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final TrieNode root;
+
+    private PersistentLeafIndex(TrieNode root) {
+        this.root = root;
+    }
+
+    /**
+     * first 返回叶子哈希第一次出现的下标，不存在时返回 -1
+     */
+    int first(byte[] leafHash) {
+        HashKey key = new HashKey(leafHash);
+        int hashCode = key.hashCode();
+        TrieNode node = root;
+        for (int shift = 0; ; shift += BITS) {
+            Object slot = node.find(hashCode, shift, key);
+            if (slot == null) {
+                return -1;
+            }
+            if (slot instanceof Entry) {
+                return ((Entry) slot).indices[0];
+            }
+            node = (TrieNode) slot;
+        }
+    }
+
+    /**
+     * add 返回在 leafHash 下增加 index 之后的索引
+     */
+    PersistentLeafIndex add(byte[] leafHash, int index) {
+        return update(new HashKey(leafHash), index, true);
+    }
+
+    /**
+     * remove 返回从 leafHash 下移除 index 之后的索引，最后一个下标被移除时整个条目被删除
+     */
+    PersistentLeafIndex remove(byte[] leafHash, int index) {
+        return update(new HashKey(leafHash), index, false);
+    }
+
+    private PersistentLeafIndex update(HashKey key, int index, boolean add) {
+        TrieNode updated = root.update(key.hashCode(), 0, key, index, add);
+        return updated == root ? this : new PersistentLeafIndex(updated);
+    }
+
+    private static final class Entry {
+        final HashKey key;
+        final int[] indices;
+
+        Entry(HashKey key, int[] indices) {
+            this.key = key;
+            this.indices = indices;
+        }
+
+        /**
+         * with 返回增加或移除 index 后的条目，结果为空时返回 null，没有变化时返回自身
+         */
+        Entry with(int index, boolean add) {
+            int pos = Arrays.binarySearch(indices, index);
+            if (add == pos >= 0) {
+                return this;
+            }
+            if (add) {
+                int insert = -pos - 1;
+                int[] next = new int[indices.length + 1];
+                System.arraycopy(indices, 0, next, 0, insert);
+                next[insert] = index;
+                System.arraycopy(indices, insert, next, insert + 1, indices.length - insert);
+                return new Entry(key, next);
+            }
+            if (indices.length == 1) {
+                return null;
+            }
+            int[] next = new int[indices.length - 1];
+            System.arraycopy(indices, 0, next, 0, pos);
+            System.arraycopy(indices, pos + 1, next, pos, next.length - pos);
+            return new Entry(key, next);
+        }
+    }
+
+    /**
+     * TrieNode 的 slots 中每一项是 Entry 或下一层 TrieNode，由 bitmap 压缩存放。
+     * 32 位 hashCode 用尽后进入冲突节点：bitmap 为 0，slots 中的 Entry 按顺序比较
+     */
+    private static final class TrieNode {
+        final int bitmap;
+        final Object[] slots;
+
+        TrieNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        Object find(int hashCode, int shift, HashKey key) {
+            if (shift >= 32) {
+                for (Object slot : slots) {
+                    if (((Entry) slot).key.equals(key)) {
+                        return slot;
+                    }
+                }
+                return null;
+            }
+            int bit = 1 << ((hashCode >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = slots[Integer.bitCount(bitmap & (bit - 1))];
+            return slot instanceof Entry && !((Entry) slot).key.equals(key) ? null : slot;
+        }
+
+        TrieNode update(int hashCode, int shift, HashKey key, int index, boolean add) {
+            if (shift >= 32) {
+                for (int i = 0; i < slots.length; i++) {
+                    Entry entry = (Entry) slots[i];
+                    if (entry.key.equals(key)) {
+                        return replace(i, entry.with(index, add), 0);
+                    }
+                }
+                return add ? insert(slots.length, new Entry(key, new int[]{index}), 0) : this;
+            }
+            int bit = 1 << ((hashCode >>> shift) & MASK);
+            int pos = Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                return add ? insert(pos, new Entry(key, new int[]{index}), bitmap | bit) : this;
+            }
+            Object slot = slots[pos];
+            if (slot instanceof TrieNode) {
+                TrieNode child = ((TrieNode) slot).update(hashCode, shift + BITS, key, index, add);
+                if (child == slot) {
+                    return this;
+                }
+                return child.slots.length == 0 ? replace(pos, null, bitmap & ~bit) : replace(pos, child, bitmap);
+            }
+            Entry entry = (Entry) slot;
+            if (entry.key.equals(key)) {
+                Entry next = entry.with(index, add);
+                if (next == entry) {
+                    return this;
+                }
+                return next == null ? replace(pos, null, bitmap & ~bit) : replace(pos, next, bitmap);
+            }
+            if (!add) {
+                return this;
+            }
+            TrieNode split = pair(entry, new Entry(key, new int[]{index}), hashCode, shift + BITS);
+            return replace(pos, split, bitmap);
+        }
+
+        /**
+         * pair 构造同时包含两个条目的子节点，两者在当前层落入同一位置时继续向下分裂
+         */
+        private static TrieNode pair(Entry a, Entry b, int hashCodeB, int shift) {
+            if (shift >= 32) {
+                return new TrieNode(0, new Object[]{a, b});
+            }
+            int hashCodeA = a.key.hashCode();
+            int bitA = (hashCodeA >>> shift) & MASK;
+            int bitB = (hashCodeB >>> shift) & MASK;
+            if (bitA == bitB) {
+                return new TrieNode(1 << bitA, new Object[]{pair(a, b, hashCodeB, shift + BITS)});
+            }
+            return new TrieNode((1 << bitA) | (1 << bitB), bitA < bitB ? new Object[]{a, b} : new Object[]{b, a});
+        }
+
+        private TrieNode insert(int pos, Object slot, int newBitmap) {
+            Object[] next = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, next, 0, pos);
+            next[pos] = slot;
+            System.arraycopy(slots, pos, next, pos + 1, slots.length - pos);
+            return new TrieNode(newBitmap, next);
+        }
+
+        /**
+         * replace 替换第 pos 个槽位，slot 为 null 时删除该槽位
+         */
+        private TrieNode replace(int pos, Object slot, int newBitmap) {
+            if (slot != null) {
+                Object[] next = slots.clone();
+                next[pos] = slot;
+                return new TrieNode(newBitmap, next);
+            }
+            Object[] next = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, next, 0, pos);
+            System.arraycopy(slots, pos + 1, next, pos, next.length - pos);
+            return new TrieNode(newBitmap, next);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.merkle;
+
+/**
+ * PersistentNode 是不可变的树节点，更新时只复制路径上的节点，未改动的子树在各版本间共享。
+ * 节点数为奇数的层末尾的节点与自身配对，此时父节点的左右孩子为同一个对象
+ */
+final class PersistentNode {
+    final byte[] hash;
+    final PersistentNode left;
+    final PersistentNode right;
+    final Content content;
+
+    PersistentNode(byte[] hash, PersistentNode left, PersistentNode right, Content content) {
+        this.hash = hash;
+        this.left = left;
+        this.right = right;
+        this.content = content;
+    }
+}
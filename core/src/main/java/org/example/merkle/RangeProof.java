@@ -0,0 +1,128 @@
+package org.example.merkle;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RangeProof 证明下标在 [from, to) 内的一段连续叶子：区间内部的节点都可以由叶子自身算出，
+ * 每一层最多只缺区间左边界外与右边界外的两个兄弟哈希，因此证明只包含两条边界路径，共 O(log n) 个哈希。
+ * leftProof 与 rightProof 自叶子向根依次存放，只在需要的层出现；右边界节点与自身配对的层不需要哈希
+ */
+public class RangeProof {
+    private final int leafCount;
+    private final int from;
+    private final int to;
+    private final List<byte[]> leftProof;
+    private final List<byte[]> rightProof;
+
+    public RangeProof(int leafCount, int from, int to, List<byte[]> leftProof, List<byte[]> rightProof) {
+        this.leafCount = leafCount;
+        this.from = from;
+        this.to = to;
+        this.leftProof = leftProof;
+        this.rightProof = rightProof;
+    }
+
+    /**
+     * verify 由区间内的叶子哈希与两条边界路径逐层重建根，并与 root 比较
+     *
+     * @param root
+     * @param leafHashes 下标 from 到 to - 1 的叶子哈希，按下标顺序
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public boolean verify(byte[] root, List<byte[]> leafHashes, HashStrategy hashStrategy,
+                          boolean sort) throws Exception {
+        if (from < 0 || from >= to || to > leafCount || leafHashes.size() != to - from) {
+            return false;
+        }
+        byte[][] nodes = leafHashes.toArray(new byte[0][]);
+        Hash hash = hashStrategy.localHash();
+        int lo = from;
+        int hi = to - 1;
+        int count = leafCount;
+        int leftPos = 0;
+        int rightPos = 0;
+        do {
+            // 父节点 k 写入 nodes[k - lo / 2]，不会覆盖尚未读取的子节点
+            for (int k = lo / 2; k <= hi / 2; k++) {
+                byte[] left;
+                if (2 * k < lo) {
+                    if (leftPos == leftProof.size()) {
+                        return false;
+                    }
+                    left = leftProof.get(leftPos++);
+                } else {
+                    left = nodes[2 * k - lo];
+                }
+                byte[] right;
+                if (2 * k + 1 <= hi) {
+                    right = nodes[2 * k + 1 - lo];
+                } else if (2 * k + 1 < count) {
+                    if (rightPos == rightProof.size()) {
+                        return false;
+                    }
+                    right = rightProof.get(rightPos++);
+                } else {
+                    right = left;
+                }
+                nodes[k - lo / 2] = hashStrategy.combine(hash, sort, left, right);
+            }
+            lo /= 2;
+            hi /= 2;
+            count = (count + 1) / 2;
+        } while (count > 1);
+        return leftPos == leftProof.size() && rightPos == rightProof.size() && Arrays.equals(root, nodes[0]);
+    }
+
+    /**
+     * verifyContents 校验 contents 依次是下标 from 到 to - 1 的叶子
+     *
+     * @param root
+     * @param contents
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public boolean verifyContents(byte[] root, List<Content> contents, HashStrategy hashStrategy,
+                                  boolean sort) throws Exception {
+        byte[][] leafHashes = new byte[contents.size()][];
+        for (int i = 0; i < leafHashes.length; i++) {
+            leafHashes[i] = contents.get(i).calculateHash();
+        }
+        return verify(root, Arrays.asList(leafHashes), hashStrategy, sort);
+    }
+
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * getFrom 返回区间第一个叶子的下标（包含）
+     *
+     * @return
+     */
+    public int getFrom() {
+        return from;
+    }
+
+    /**
+     * getTo 返回区间末尾叶子之后的下标（不包含）
+     *
+     * @return
+     */
+    public int getTo() {
+        return to;
+    }
+
+    public List<byte[]> getLeftProof() {
+        return leftProof;
+    }
+
+    public List<byte[]> getRightProof() {
+        return rightProof;
+    }
+}
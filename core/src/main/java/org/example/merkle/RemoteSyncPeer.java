@@ -0,0 +1,117 @@
+package org.example.merkle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RemoteSyncPeer 通过 TCP 连接 MerkleSyncServer，按 MerkleSyncServer 描述的协议请求对端哈希。
+ * 记录收发的字节数，便于观察同步实际传输的数据量
+ */
+public class RemoteSyncPeer implements MerkleSyncPeer, Closeable {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private long bytesSent;
+    private long bytesReceived;
+
+    private RemoteSyncPeer(Socket socket) throws IOException {
+        this.socket = socket;
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    public static RemoteSyncPeer connect(String host, int port) throws IOException {
+        return new RemoteSyncPeer(new Socket(host, port));
+    }
+
+    @Override
+    public synchronized int leafCount() throws IOException {
+        out.writeByte(MerkleSyncServer.OP_LEAF_COUNT);
+        out.flush();
+        bytesSent += 1;
+        bytesReceived += 4;
+        int leafCount = in.readInt();
+        if (leafCount < 0) {
+            throw protocolError("Invalid leaf count " + leafCount);
+        }
+        return leafCount;
+    }
+
+    @Override
+    public synchronized List<byte[]> getHashes(int level, int[] indices) throws IOException {
+        if (indices.length <= MerkleSyncServer.MAX_HASHES_PER_REQUEST) {
+            return request(level, indices);
+        }
+        // 服务端限制单次请求的下标个数，超出时分批请求
+        List<byte[]> hashes = new ArrayList<>(indices.length);
+        for (int from = 0; from < indices.length; from += MerkleSyncServer.MAX_HASHES_PER_REQUEST) {
+            int to = Math.min(indices.length, from + MerkleSyncServer.MAX_HASHES_PER_REQUEST);
+            hashes.addAll(request(level, Arrays.copyOfRange(indices, from, to)));
+        }
+        return hashes;
+    }
+
+    private List<byte[]> request(int level, int[] indices) throws IOException {
+        out.writeByte(MerkleSyncServer.OP_HASHES);
+        out.writeInt(level);
+        out.writeInt(indices.length);
+        for (int index : indices) {
+            out.writeInt(index);
+        }
+        out.flush();
+        bytesSent += 9 + 4L * indices.length;
+
+        int count = in.readInt();
+        bytesReceived += 4;
+        if (count != indices.length) {
+            throw protocolError("Requested " + indices.length + " hashes, server returned " + count);
+        }
+        List<byte[]> hashes = new ArrayList<>(count);
+        int width = -1;
+        for (int i = 0; i < count; i++) {
+            int length = in.readInt();
+            if (length <= 0 || length > MerkleSyncServer.MAX_HASH_WIDTH || width >= 0 && length != width) {
+                throw protocolError("Invalid hash length " + length + " at level " + level);
+            }
+            width = length;
+            byte[] hash = new byte[length];
+            in.readFully(hash);
+            hashes.add(hash);
+            bytesReceived += 4 + hash.length;
+        }
+        return hashes;
+    }
+
+    /**
+     * protocolError 在收到不合法的应答后关闭连接（此后流的位置已不可信），返回待抛出的异常
+     */
+    private IOException protocolError(String message) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // 忽略
+        }
+        return new IOException(message);
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
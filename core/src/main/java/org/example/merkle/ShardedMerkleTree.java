@@ -0,0 +1,392 @@
+package org.example.merkle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * ShardedMerkleTree 把叶子按 shardSize（2 的幂）切成连续的分片，每个分片由 MerkleTree.newTree 独立构建，
+ * 再以各分片的根为叶子构建顶层树。分片起点按 shardSize 对齐，满分片的根恰好是整棵树第 log2(shardSize) 层的节点；
+ * 末尾不满的分片在整棵树中没有右兄弟，其根需逐层与自身合并提升到同一层。因此根与对全部叶子调用 MerkleTree.newTree 相同。
+ * 只有一个分片时整棵树就是该分片本身。非线程安全
+ */
+public class ShardedMerkleTree {
+    private final int shardSize;
+    private final int shardLevel;
+    private final int leafCount;
+    private final HashStrategy hashStrategy;
+    private final boolean sort;
+    private final MerkleTree[] shards;
+    private final ExecutorService executor;
+    // 各分片提升到 shardLevel 层后的根组成的顶层树，只有一个分片时为 null
+    private CompactTree topTree;
+
+    private ShardedMerkleTree(int shardSize, int leafCount, HashStrategy hashStrategy, boolean sort,
+                              MerkleTree[] shards, ExecutorService executor) {
+        this.shardSize = shardSize;
+        this.shardLevel = Integer.numberOfTrailingZeros(shardSize);
+        this.leafCount = leafCount;
+        this.hashStrategy = hashStrategy;
+        this.sort = sort;
+        this.shards = shards;
+        this.executor = executor;
+    }
+
+    /**
+     * newTree 在调用线程中依次构建各分片
+     *
+     * @param contentList
+     * @param shardSize 每个分片的叶子数，必须是不小于 2 的 2 的幂
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public static ShardedMerkleTree newTree(List<Content> contentList, int shardSize, HashStrategy hashStrategy,
+                                            boolean sort) throws Exception {
+        return newTree(contentList, shardSize, hashStrategy, sort, null);
+    }
+
+    /**
+     * newTree 将各分片作为独立任务提交到 executor 上并行构建，之后按分片更新时也在 executor 上执行
+     *
+     * @param contentList
+     * @param shardSize 每个分片的叶子数，必须是不小于 2 的 2 的幂
+     * @param hashStrategy
+     * @param sort
+     * @param executor 为 null 时在调用线程中构建
+     * @return
+     * @throws Exception
+     */
+    public static ShardedMerkleTree newTree(List<Content> contentList, int shardSize, HashStrategy hashStrategy,
+                                            boolean sort, ExecutorService executor) throws Exception {
+        if (contentList == null || contentList.isEmpty()) {
+            throw new IllegalArgumentException("Cannot construct tree with no content");
+        }
+        // 只有一个叶子的分片的根是 H(a, a) 而不是叶子哈希本身，不能作为第 0 层节点
+        if (shardSize < 2 || Integer.bitCount(shardSize) != 1) {
+            throw new IllegalArgumentException("Shard size must be a power of two no less than 2: " + shardSize);
+        }
+        int shardCount = (contentList.size() - 1) / shardSize + 1;
+        List<List<Content>> parts = new ArrayList<>(shardCount);
+        for (int s = 0; s < shardCount; s++) {
+            parts.add(contentList.subList(s * shardSize, Math.min(contentList.size(), (s + 1) * shardSize)));
+        }
+        ShardedMerkleTree tree = new ShardedMerkleTree(shardSize, contentList.size(), hashStrategy, sort,
+                new MerkleTree[shardCount], executor);
+        tree.buildShards(range(shardCount), parts);
+        tree.buildTopTree();
+        return tree;
+    }
+
+    /**
+     * buildShards 构建 shardIndices 中的分片，parts 与 shardIndices 一一对应
+     */
+    private void buildShards(int[] shardIndices, List<List<Content>> parts) throws Exception {
+        if (executor == null) {
+            for (int i = 0; i < shardIndices.length; i++) {
+                shards[shardIndices[i]] = MerkleTree.newTree(parts.get(i), hashStrategy, sort);
+            }
+            return;
+        }
+        List<Future<MerkleTree>> futures = new ArrayList<>(shardIndices.length);
+        for (List<Content> part : parts) {
+            futures.add(executor.submit(() -> MerkleTree.newTree(part, hashStrategy, sort)));
+        }
+        for (int i = 0; i < shardIndices.length; i++) {
+            shards[shardIndices[i]] = await(futures, i);
+        }
+    }
+
+    private static <T> T await(List<Future<T>> futures, int i) throws Exception {
+        try {
+            return futures.get(i).get();
+        } catch (ExecutionException e) {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void buildTopTree() throws Exception {
+        if (shards.length == 1) {
+            topTree = null;
+            return;
+        }
+        List<byte[]> shardRoots = new ArrayList<>(shards.length);
+        Hash hash = hashStrategy.localHash();
+        for (MerkleTree shard : shards) {
+            shardRoots.add(liftedRoot(shard, hash));
+        }
+        topTree = CompactTree.build(shardRoots, hashStrategy, sort);
+    }
+
+    /**
+     * liftedRoot 返回分片在整棵树第 shardLevel 层对应的节点：不满的分片高度不足，根逐层与自身合并
+     */
+    private byte[] liftedRoot(MerkleTree shard, Hash hash) throws Exception {
+        byte[] root = shard.getMerkleRoot();
+        for (int level = shardHeight(shard); level < shardLevel; level++) {
+            root = hashStrategy.combine(hash, sort, root, root);
+        }
+        return root;
+    }
+
+    private static int shardHeight(MerkleTree shard) {
+        return shard.getCompactTree().getLevelCount() - 1;
+    }
+
+    /**
+     * updateLeaves 按分片分组替换叶子：每个受影响的分片只重新计算被修改的路径，再更新顶层树中对应的叶子
+     *
+     * @param updates 全局叶子下标到新内容的映射
+     * @return
+     * @throws Exception
+     */
+    public ShardedMerkleTree updateLeaves(Map<Integer, Content> updates) throws Exception {
+        TreeMap<Integer, Map<Integer, Content>> byShard = new TreeMap<>();
+        for (Map.Entry<Integer, Content> entry : updates.entrySet()) {
+            Integer index = entry.getKey();
+            if (index == null || index < 0 || index >= leafCount) {
+                throw new IndexOutOfBoundsException("Leaf index: " + index);
+            }
+            byShard.computeIfAbsent(index / shardSize, s -> new TreeMap<>()).put(index % shardSize, entry.getValue());
+        }
+        try {
+            updateShards(byShard);
+        } catch (Exception e) {
+            // 单个分片的 updateLeaves 失败时该分片保持不变，已成功的分片保留新根；两种情况下都先同步顶层树再抛出，
+            // 保证根与路径始终和各分片一致
+            try {
+                updateTopTree(byShard.keySet());
+            } catch (Exception suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        updateTopTree(byShard.keySet());
+        return this;
+    }
+
+    /**
+     * updateShards 更新各分片；并行执行时等待全部任务结束后再抛出第一个异常，之后不会再有分片在后台被修改
+     */
+    private void updateShards(Map<Integer, Map<Integer, Content>> byShard) throws Exception {
+        if (executor == null || byShard.size() == 1) {
+            for (Map.Entry<Integer, Map<Integer, Content>> entry : byShard.entrySet()) {
+                shards[entry.getKey()].updateLeaves(entry.getValue());
+            }
+            return;
+        }
+        List<Future<MerkleTree>> futures = new ArrayList<>(byShard.size());
+        for (Map.Entry<Integer, Map<Integer, Content>> entry : byShard.entrySet()) {
+            MerkleTree shard = shards[entry.getKey()];
+            futures.add(executor.submit(() -> shard.updateLeaves(entry.getValue())));
+        }
+        Exception failure = null;
+        for (Future<MerkleTree> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * updateLeaf 替换第 index 个叶子的内容
+     *
+     * @param index 全局叶子下标
+     * @param content
+     * @return
+     * @throws Exception
+     */
+    public ShardedMerkleTree updateLeaf(int index, Content content) throws Exception {
+        return updateLeaves(Collections.singletonMap(index, content));
+    }
+
+    /**
+     * rebuildShard 用新的内容重新构建第 shard 个分片，再更新顶层树，其余分片不受影响。叶子数必须与原分片相同
+     *
+     * @param shard
+     * @param contentList
+     * @return
+     * @throws Exception
+     */
+    public ShardedMerkleTree rebuildShard(int shard, List<Content> contentList) throws Exception {
+        checkShardIndex(shard);
+        if (contentList == null || contentList.size() != shards[shard].getCompactTree().getLeafCount()) {
+            throw new IllegalArgumentException("Shard " + shard + " must keep "
+                    + shards[shard].getCompactTree().getLeafCount() + " leaves");
+        }
+        buildShards(new int[]{shard}, Collections.singletonList(contentList));
+        updateTopTree(Collections.singleton(shard));
+        return this;
+    }
+
+    private void updateTopTree(Iterable<Integer> shardIndices) throws Exception {
+        if (topTree == null) {
+            return;
+        }
+        Hash hash = hashStrategy.localHash();
+        List<Integer> changed = new ArrayList<>();
+        for (Integer shard : shardIndices) {
+            topTree.setLeafHash(shard, liftedRoot(shards[shard], hash));
+            changed.add(shard);
+        }
+        int[] sorted = new int[changed.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = changed.get(i);
+        }
+        Arrays.sort(sorted);
+        topTree.rehash(sorted);
+    }
+
+    /**
+     * getMerklePath 返回第 index 个叶子在整棵树中的默克尔路径：分片内的路径，提升不满分片时的自配对节点，
+     * 以及顶层树中该分片的路径依次拼接，格式与 MerkleTree.getMerklePath 相同
+     *
+     * @param index 全局叶子下标
+     * @return
+     */
+    public MerklePathResult getMerklePath(int index) {
+        if (index < 0 || index >= leafCount) {
+            throw new IndexOutOfBoundsException("Leaf index: " + index);
+        }
+        int shard = index / shardSize;
+        MerklePathResult local = shards[shard].getMerklePath(index % shardSize);
+        if (topTree == null) {
+            return local;
+        }
+        List<byte[]> merklePath = new ArrayList<>(local.getMerklePath());
+        List<Integer> indexes = new ArrayList<>(local.getIndex());
+        int height = shardHeight(shards[shard]);
+        if (height < shardLevel) {
+            // 提升过程中每层的兄弟节点就是当前节点自身，且当前节点总在左侧
+            byte[] node = shards[shard].getCompactTree().getRoot();
+            try {
+                Hash hash = hashStrategy.localHash();
+                for (int level = height; level < shardLevel; level++) {
+                    merklePath.add(node);
+                    indexes.add(1);
+                    if (level + 1 < shardLevel) {
+                        node = hashStrategy.combine(hash, sort, node, node);
+                    }
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to lift shard root", e);
+            }
+        }
+        MerklePathResult top = topTree.getMerklePath(shard);
+        merklePath.addAll(top.getMerklePath());
+        indexes.addAll(top.getIndex());
+        return new MerklePathResult(merklePath, indexes);
+    }
+
+    /**
+     * getMerklePath 返回给定内容的默克尔路径，内容不在树中时返回 null
+     *
+     * @param content
+     * @return
+     * @throws Exception
+     */
+    public MerklePathResult getMerklePath(Content content) throws Exception {
+        int index = indexOf(content.calculateHash());
+        return index < 0 ? null : getMerklePath(index);
+    }
+
+    /**
+     * indexOf 返回给定叶子哈希第一次出现的全局下标，不存在时返回 -1。依次查询各分片的叶子索引
+     *
+     * @param leafHash
+     * @return
+     */
+    public int indexOf(byte[] leafHash) {
+        for (int s = 0; s < shards.length; s++) {
+            int index = shards[s].indexOf(leafHash);
+            if (index >= 0) {
+                return s * shardSize + index;
+            }
+        }
+        return -1;
+    }
+
+    public byte[] getMerkleRoot() {
+        return topTree == null ? shards[0].getMerkleRoot() : topTree.getRoot();
+    }
+
+    /**
+     * getShard 返回第 shard 个分片，分片内的下标从 0 开始
+     *
+     * @param shard
+     * @return
+     */
+    public MerkleTree getShard(int shard) {
+        checkShardIndex(shard);
+        return shards[shard];
+    }
+
+    /**
+     * getShardRoot 返回第 shard 个分片在整棵树中对应节点的哈希，即顶层树的叶子
+     *
+     * @param shard
+     * @return
+     */
+    public byte[] getShardRoot(int shard) {
+        checkShardIndex(shard);
+        return topTree == null ? shards[0].getMerkleRoot() : topTree.getHash(0, shard);
+    }
+
+    private void checkShardIndex(int shard) {
+        if (shard < 0 || shard >= shards.length) {
+            throw new IndexOutOfBoundsException("Shard index: " + shard);
+        }
+    }
+
+    private static int[] range(int size) {
+        int[] indices = new int[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public int getShardSize() {
+        return shardSize;
+    }
+
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    public HashStrategy getHashStrategy() {
+        return hashStrategy;
+    }
+
+    public boolean isSort() {
+        return sort;
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.merkle;
+
+import java.util.List;
+
+/**
+ * SparseMerkleProof 是稀疏默克尔树中某个键的证明。自叶子向上第 i 层的兄弟若为空子树，只在 bitmap 中记 0，
+ * 不携带哈希；否则记 1，并按自下而上的顺序放入 siblings。256 层的证明只携带非空兄弟的哈希
+ */
+public class SparseMerkleProof {
+    private byte[] key;
+    private byte[] bitmap;
+    private List<byte[]> siblings;
+
+    public SparseMerkleProof(byte[] key, byte[] bitmap, List<byte[]> siblings) {
+        this.key = key;
+        this.bitmap = bitmap;
+        this.siblings = siblings;
+    }
+
+    /**
+     * hasSibling 返回自叶子向上第 height 层的兄弟是否为非空子树
+     *
+     * @param height
+     * @return
+     */
+    public boolean hasSibling(int height) {
+        return (bitmap[height >> 3] >> (height & 7) & 1) == 1;
+    }
+
+    public byte[] getKey() {
+        return key;
+    }
+
+    public byte[] getBitmap() {
+        return bitmap;
+    }
+
+    public List<byte[]> getSiblings() {
+        return siblings;
+    }
+}
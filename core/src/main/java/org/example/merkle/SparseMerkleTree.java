@@ -0,0 +1,303 @@
+package org.example.merkle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * SparseMerkleTree 是以 256 位键寻址的认证键值映射：键的每一位自高到低决定从根到叶子的左右方向，
+ * 不存在的键对应空叶子（全零哈希）。各深度空子树的哈希预先计算，只保存非空节点，
+ * 因此可以同时证明键存在（成员证明）与不存在（非成员证明）
+ */
+public class SparseMerkleTree {
+    public static final int DEPTH = 256;
+    public static final int KEY_LENGTH = DEPTH / 8;
+    // 各 HashStrategy 对应的空子树哈希，供树与静态校验方法共享，数组只读；策略不再被引用后随之回收
+    private static final Map<HashStrategy, byte[][]> DEFAULTS_CACHE =
+            Collections.synchronizedMap(new WeakHashMap<HashStrategy, byte[][]>());
+
+    private final HashStrategy hashStrategy;
+    private final Hash hash;
+    // defaults[d] 为深度 d 处空子树的哈希，defaults[DEPTH] 为空叶子
+    private final byte[][] defaults;
+    // 键为 (深度, 截断到该深度的键前缀)，只保存与空子树哈希不同的节点
+    private final Map<HashKey, byte[]> nodes = new HashMap<>();
+    private int size;
+
+    private SparseMerkleTree(HashStrategy hashStrategy) throws Exception {
+        this.hashStrategy = hashStrategy;
+        this.hash = hashStrategy.createHash();
+        this.defaults = cachedDefaults(hashStrategy);
+    }
+
+    public static SparseMerkleTree newTree(HashStrategy hashStrategy) throws Exception {
+        return new SparseMerkleTree(hashStrategy);
+    }
+
+    /**
+     * defaultHashes 计算各深度空子树的哈希
+     *
+     * @param hashStrategy
+     * @return
+     * @throws Exception
+     */
+    public static byte[][] defaultHashes(HashStrategy hashStrategy) throws Exception {
+        Hash hash = hashStrategy.createHash();
+        byte[][] defaults = new byte[DEPTH + 1][];
+        defaults[DEPTH] = new byte[hash.size()];
+        for (int depth = DEPTH - 1; depth >= 0; depth--) {
+            defaults[depth] = hashStrategy.combine(hash, false, defaults[depth + 1], defaults[depth + 1]);
+        }
+        return defaults;
+    }
+
+    private static byte[][] cachedDefaults(HashStrategy hashStrategy) throws Exception {
+        byte[][] defaults = DEFAULTS_CACHE.get(hashStrategy);
+        if (defaults == null) {
+            defaults = defaultHashes(hashStrategy);
+            DEFAULTS_CACHE.put(hashStrategy, defaults);
+        }
+        return defaults;
+    }
+
+    /**
+     * put 将键对应的叶子设为内容的哈希
+     *
+     * @param key
+     * @param content
+     * @return
+     * @throws Exception
+     */
+    public SparseMerkleTree put(byte[] key, Content content) throws Exception {
+        return put(key, content.calculateHash());
+    }
+
+    /**
+     * put 将键对应的叶子设为给定哈希，哈希长度需与 HashStrategy 的输出一致且不能为全零
+     *
+     * @param key
+     * @param leafHash
+     * @return
+     * @throws Exception
+     */
+    public SparseMerkleTree put(byte[] key, byte[] leafHash) throws Exception {
+        if (leafHash.length != defaults[DEPTH].length) {
+            throw new IllegalArgumentException("Leaf hash has length " + leafHash.length + ", expected "
+                    + defaults[DEPTH].length);
+        }
+        if (Arrays.equals(leafHash, defaults[DEPTH])) {
+            throw new IllegalArgumentException("Leaf hash collides with the empty leaf");
+        }
+        update(key, leafHash.clone());
+        return this;
+    }
+
+    /**
+     * remove 删除键，使其叶子恢复为空
+     *
+     * @param key
+     * @return 键原本存在时返回 true
+     * @throws Exception
+     */
+    public boolean remove(byte[] key) throws Exception {
+        if (get(key) == null) {
+            return false;
+        }
+        update(key, defaults[DEPTH]);
+        return true;
+    }
+
+    /**
+     * get 返回键对应的叶子哈希，键不存在时返回 null
+     *
+     * @param key
+     * @return
+     */
+    public byte[] get(byte[] key) {
+        checkKey(key);
+        byte[] leaf = nodes.get(nodeKey(DEPTH, key));
+        return leaf == null ? null : leaf.clone();
+    }
+
+    public byte[] getRoot() {
+        return node(0, new byte[KEY_LENGTH]).clone();
+    }
+
+    /**
+     * getProof 返回键的证明；键存在时可用于成员证明，不存在时可用于非成员证明
+     *
+     * @param key
+     * @return
+     */
+    public SparseMerkleProof getProof(byte[] key) {
+        checkKey(key);
+        byte[] bitmap = new byte[DEPTH / 8];
+        List<byte[]> siblings = new ArrayList<>();
+        byte[] siblingKey = key.clone();
+        for (int height = 0; height < DEPTH; height++) {
+            int depth = DEPTH - height;
+            flipBit(siblingKey, depth - 1);
+            byte[] sibling = nodes.get(nodeKey(depth, siblingKey));
+            flipBit(siblingKey, depth - 1);
+            if (sibling != null) {
+                bitmap[height >> 3] |= 1 << (height & 7);
+                siblings.add(sibling.clone());
+            }
+        }
+        return new SparseMerkleProof(key.clone(), bitmap, siblings);
+    }
+
+    /**
+     * verifyMembership 校验键在以 root 为根的树中对应给定的叶子哈希
+     *
+     * @param root
+     * @param leafHash
+     * @param proof
+     * @param hashStrategy
+     * @return
+     * @throws Exception
+     */
+    public static boolean verifyMembership(byte[] root, byte[] leafHash, SparseMerkleProof proof,
+                                           HashStrategy hashStrategy) throws Exception {
+        byte[][] defaults = cachedDefaults(hashStrategy);
+        return !Arrays.equals(leafHash, defaults[DEPTH]) && verify(root, leafHash, proof, hashStrategy, defaults);
+    }
+
+    /**
+     * verifyNonMembership 校验键在以 root 为根的树中不存在
+     *
+     * @param root
+     * @param proof
+     * @param hashStrategy
+     * @return
+     * @throws Exception
+     */
+    public static boolean verifyNonMembership(byte[] root, SparseMerkleProof proof,
+                                              HashStrategy hashStrategy) throws Exception {
+        byte[][] defaults = cachedDefaults(hashStrategy);
+        return verify(root, defaults[DEPTH], proof, hashStrategy, defaults);
+    }
+
+    private static boolean verify(byte[] root, byte[] leafHash, SparseMerkleProof proof, HashStrategy hashStrategy,
+                                  byte[][] defaults) throws Exception {
+        byte[] key = proof.getKey();
+        byte[] bitmap = proof.getBitmap();
+        List<byte[]> siblings = proof.getSiblings();
+        // 证明来自不可信方，格式不对时返回 false 而不是抛出异常
+        if (key == null || key.length != KEY_LENGTH || bitmap == null || bitmap.length != DEPTH / 8
+                || siblings == null || leafHash.length != defaults[DEPTH].length) {
+            return false;
+        }
+        Hash hash = hashStrategy.localHash();
+        int next = 0;
+        byte[] current = leafHash;
+        for (int height = 0; height < DEPTH; height++) {
+            int depth = DEPTH - height;
+            byte[] sibling;
+            if (proof.hasSibling(height)) {
+                if (next == siblings.size()) {
+                    return false;
+                }
+                sibling = siblings.get(next++);
+                if (sibling == null || sibling.length != current.length) {
+                    return false;
+                }
+            } else {
+                sibling = defaults[depth];
+            }
+            current = bit(key, depth - 1) == 0
+                    ? hashStrategy.combine(hash, false, current, sibling)
+                    : hashStrategy.combine(hash, false, sibling, current);
+        }
+        return next == siblings.size() && Arrays.equals(root, current);
+    }
+
+    private void update(byte[] key, byte[] leafHash) throws Exception {
+        checkKey(key);
+        boolean existed = nodes.containsKey(nodeKey(DEPTH, key));
+        byte[] current = leafHash;
+        setNode(DEPTH, key, current);
+        byte[] siblingKey = key.clone();
+        for (int depth = DEPTH - 1; depth >= 0; depth--) {
+            flipBit(siblingKey, depth);
+            byte[] sibling = node(depth + 1, siblingKey);
+            flipBit(siblingKey, depth);
+            current = bit(key, depth) == 0
+                    ? hashStrategy.combine(hash, false, current, sibling)
+                    : hashStrategy.combine(hash, false, sibling, current);
+            setNode(depth, key, current);
+        }
+        boolean exists = nodes.containsKey(nodeKey(DEPTH, key));
+        size += (exists ? 1 : 0) - (existed ? 1 : 0);
+    }
+
+    private byte[] node(int depth, byte[] key) {
+        byte[] node = nodes.get(nodeKey(depth, key));
+        return node != null ? node : defaults[depth];
+    }
+
+    private void setNode(int depth, byte[] key, byte[] value) {
+        if (Arrays.equals(value, defaults[depth])) {
+            nodes.remove(nodeKey(depth, key));
+        } else {
+            nodes.put(nodeKey(depth, key), value);
+        }
+    }
+
+    /**
+     * nodeKey 由深度与截断到该深度的键前缀组成节点在 Map 中的键
+     */
+    private static HashKey nodeKey(int depth, byte[] key) {
+        byte[] nodeKey = new byte[2 + (depth + 7) / 8];
+        nodeKey[0] = (byte) (depth >> 8);
+        nodeKey[1] = (byte) depth;
+        System.arraycopy(key, 0, nodeKey, 2, nodeKey.length - 2);
+        if (depth % 8 != 0) {
+            nodeKey[nodeKey.length - 1] &= (byte) (0xff << (8 - depth % 8));
+        }
+        return new HashKey(nodeKey);
+    }
+
+    /**
+     * bit 返回键自高位起第 position 位，0 表示向左
+     */
+    private static int bit(byte[] key, int position) {
+        return key[position >> 3] >> (7 - (position & 7)) & 1;
+    }
+
+    private static void flipBit(byte[] key, int position) {
+        key[position >> 3] ^= (byte) (1 << (7 - (position & 7)));
+    }
+
+    private static void checkKey(byte[] key) {
+        if (key.length != KEY_LENGTH) {
+            throw new IllegalArgumentException("Key has length " + key.length + ", expected " + KEY_LENGTH);
+        }
+    }
+
+    /**
+     * size 返回非空键的个数
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * nodeCount 返回实际保存的非空节点数
+     *
+     * @return
+     */
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    public HashStrategy getHashStrategy() {
+        return hashStrategy;
+    }
+}
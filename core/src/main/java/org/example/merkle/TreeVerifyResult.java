@@ -0,0 +1,54 @@
+package org.example.merkle;
+
+/**
+ * TreeVerifyResult 是整树或增量校验的结果。校验失败时给出第一个不一致节点的位置：
+ * level 为所在层（第 0 层为叶子），index 为该层中的下标
+ */
+public class TreeVerifyResult {
+    private static final TreeVerifyResult VALID = new TreeVerifyResult(true, -1, -1);
+
+    private final boolean valid;
+    private final int level;
+    private final int index;
+
+    private TreeVerifyResult(boolean valid, int level, int index) {
+        this.valid = valid;
+        this.level = level;
+        this.index = index;
+    }
+
+    public static TreeVerifyResult valid() {
+        return VALID;
+    }
+
+    public static TreeVerifyResult failure(int level, int index) {
+        return new TreeVerifyResult(false, level, index);
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * getLevel 返回不一致节点所在的层，校验通过时返回 -1
+     *
+     * @return
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * getIndex 返回不一致节点在层中的下标，校验通过时返回 -1
+     *
+     * @return
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return valid ? "TreeVerifyResult{valid}" : "TreeVerifyResult{level=" + level + ", index=" + index + "}";
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.merkle;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * VersionedMerkleTree 保存默克尔树的多个历史版本。每次提交只新建被修改路径上的节点，
+ * 未改动的子树与上一版本共享，因此保留第 N 个块的根的同时可以继续构建第 N+1 个块。
+ * 丢弃旧版本后，不再被任何保留版本引用的节点即可被垃圾回收
+ */
+public class VersionedMerkleTree {
+    private final Deque<MerkleTreeVersion> versions = new ArrayDeque<>();
+    private int maxVersions;
+
+    private VersionedMerkleTree(MerkleTreeVersion initial, int maxVersions) {
+        this.versions.addLast(initial);
+        this.maxVersions = maxVersions;
+    }
+
+    /**
+     * newTree 由内容列表构建版本 0，默认保留所有版本
+     *
+     * @param contentList
+     * @param hashStrategy
+     * @param sort
+     * @return
+     * @throws Exception
+     */
+    public static VersionedMerkleTree newTree(List<Content> contentList, HashStrategy hashStrategy,
+                                              boolean sort) throws Exception {
+        return new VersionedMerkleTree(MerkleTreeVersion.newVersion(contentList, hashStrategy, sort),
+                Integer.MAX_VALUE);
+    }
+
+    /**
+     * updateLeaf 替换一个叶子并提交新版本
+     *
+     * @param index
+     * @param content
+     * @return 新版本
+     * @throws Exception
+     */
+    public MerkleTreeVersion updateLeaf(int index, Content content) throws Exception {
+        return update(Collections.singletonMap(index, content));
+    }
+
+    /**
+     * update 基于最新版本替换一批叶子并提交为新版本，超出保留数量的最旧版本被丢弃
+     *
+     * @param updates 叶子下标到新内容的映射
+     * @return 新版本
+     * @throws Exception
+     */
+    public synchronized MerkleTreeVersion update(Map<Integer, Content> updates) throws Exception {
+        MerkleTreeVersion next = versions.peekLast().update(updates);
+        if (next != versions.peekLast()) {
+            versions.addLast(next);
+            trim();
+        }
+        return next;
+    }
+
+    /**
+     * latest 返回最新版本
+     *
+     * @return
+     */
+    public synchronized MerkleTreeVersion latest() {
+        return versions.peekLast();
+    }
+
+    /**
+     * getVersion 返回版本号为 version 的版本，已丢弃或不存在时返回 null
+     *
+     * @param version
+     * @return
+     */
+    public synchronized MerkleTreeVersion getVersion(long version) {
+        for (MerkleTreeVersion v : versions) {
+            if (v.getVersion() == version) {
+                return v;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * getMerkleRoot 返回指定版本的根，版本不存在时返回 null
+     *
+     * @param version
+     * @return
+     */
+    public byte[] getMerkleRoot(long version) {
+        MerkleTreeVersion v = getVersion(version);
+        return v == null ? null : v.getMerkleRoot();
+    }
+
+    /**
+     * getMerklePath 返回指定版本中第 index 个叶子的默克尔路径，版本不存在时返回 null
+     *
+     * @param version
+     * @param index
+     * @return
+     */
+    public MerklePathResult getMerklePath(long version, int index) {
+        MerkleTreeVersion v = getVersion(version);
+        return v == null ? null : v.getMerklePath(index);
+    }
+
+    /**
+     * getVersions 返回当前保留的所有版本，按版本号升序
+     *
+     * @return
+     */
+    public synchronized List<MerkleTreeVersion> getVersions() {
+        return new ArrayList<>(versions);
+    }
+
+    /**
+     * dropVersionsBefore 丢弃版本号小于 version 的所有版本，最新版本总是保留
+     *
+     * @param version
+     * @return 丢弃的版本数
+     */
+    public synchronized int dropVersionsBefore(long version) {
+        int dropped = 0;
+        while (versions.size() > 1 && versions.peekFirst().getVersion() < version) {
+            versions.removeFirst();
+            dropped++;
+        }
+        return dropped;
+    }
+
+    public synchronized int getMaxVersions() {
+        return maxVersions;
+    }
+
+    /**
+     * setMaxVersions 设置最多保留的版本数，超出时立即丢弃最旧的版本
+     *
+     * @param maxVersions
+     */
+    public synchronized void setMaxVersions(int maxVersions) {
+        if (maxVersions <= 0) {
+            throw new IllegalArgumentException("Max versions must be positive: " + maxVersions);
+        }
+        this.maxVersions = maxVersions;
+        trim();
+    }
+
+    private void trim() {
+        while (versions.size() > maxVersions) {
+            versions.removeFirst();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.merkle.jfr;
+
+import org.example.merkle.MerkleMetrics;
+
+/**
+ * JfrMerkleMetrics 为构建、校验等操作以及每层构建发出 JFR 事件，计数类指标转交给 delegate。
+ * 事件在操作结束时提交，耗时记录在 durationNanos 字段中。依赖 jdk.jfr，只在 JDK 11 及以上（或带 JFR 的 8u262+）使用
+ */
+public class JfrMerkleMetrics implements MerkleMetrics {
+    private final MerkleMetrics delegate;
+
+    public JfrMerkleMetrics() {
+        this(MerkleMetrics.NOOP);
+    }
+
+    /**
+     * @param delegate 同时接收所有指标的另一个实现，如 InMemoryMerkleMetrics
+     */
+    public JfrMerkleMetrics(MerkleMetrics delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void hashed(long invocations, long bytes) {
+        // 每次哈希都发事件开销过大，只转交计数
+        delegate.hashed(invocations, bytes);
+    }
+
+    @Override
+    public void nodesAllocated(long count) {
+        delegate.nodesAllocated(count);
+    }
+
+    @Override
+    public void levelBuilt(int level, int nodes, long nanos) {
+        MerkleLevelEvent event = new MerkleLevelEvent();
+        if (event.isEnabled()) {
+            event.level = level;
+            event.nodes = nodes;
+            event.durationNanos = nanos;
+            event.commit();
+        }
+        delegate.levelBuilt(level, nodes, nanos);
+    }
+
+    @Override
+    public void operationCompleted(Operation operation, int leafCount, long nanos) {
+        MerkleOperationEvent event = new MerkleOperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation.name();
+            event.leafCount = leafCount;
+            event.durationNanos = nanos;
+            event.commit();
+        }
+        delegate.operationCompleted(operation, leafCount, nanos);
+    }
+}
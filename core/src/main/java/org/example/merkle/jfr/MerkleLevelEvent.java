@@ -0,0 +1,27 @@
+package org.example.merkle.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * MerkleLevelEvent 记录构建中一层节点的计算
+ */
+@Name("org.example.merkle.Level")
+@Label("Merkle Level")
+@Category("Merkle Tree")
+@Description("Hashing of one Merkle tree level during a build")
+public class MerkleLevelEvent extends Event {
+    @Label("Level")
+    public int level;
+
+    @Label("Nodes")
+    public int nodes;
+
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    public long durationNanos;
+}
@@ -0,0 +1,27 @@
+package org.example.merkle.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * MerkleOperationEvent 记录一次构建、路径查询或校验
+ */
+@Name("org.example.merkle.Operation")
+@Label("Merkle Operation")
+@Category("Merkle Tree")
+@Description("A Merkle tree build, proof or verification")
+public class MerkleOperationEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Leaf Count")
+    public int leafCount;
+
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    public long durationNanos;
+}
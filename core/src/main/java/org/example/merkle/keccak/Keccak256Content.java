@@ -0,0 +1,44 @@
+package org.example.merkle.keccak;
+
+import org.example.merkle.Content;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Keccak-256 内容实现，内容按 UTF-8 编码后计算哈希
+ */
+public class Keccak256Content implements Content {
+    private String content;
+    // 缓存的内容哈希，内容变更时失效
+    private byte[] hash;
+
+    public Keccak256Content(String content) {
+        this.content = content;
+    }
+
+    @Override
+    public byte[] calculateHash() throws Exception {
+        if (hash == null) {
+            Keccak256Hash keccakHash = new Keccak256Hash();
+            keccakHash.write(content.getBytes(StandardCharsets.UTF_8));
+            hash = new byte[keccakHash.size()];
+            keccakHash.doFinal(hash, 0);
+        }
+        return hash.clone();
+    }
+
+    @Override
+    public boolean equals(Content other) throws Exception {
+        return Arrays.equals(calculateHash(), other.calculateHash());
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+        this.hash = null;
+    }
+}
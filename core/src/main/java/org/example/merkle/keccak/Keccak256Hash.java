@@ -0,0 +1,75 @@
+package org.example.merkle.keccak;
+
+import org.bouncycastle.crypto.digests.KeccakDigest;
+import org.example.merkle.Hash;
+
+import java.io.IOException;
+
+/**
+ * Keccak-256 digest 的 Hash 包装。注意是以太坊使用的原始 Keccak 填充，与 NIST SHA3-256 的结果不同
+ */
+public class Keccak256Hash implements Hash {
+    private final KeccakDigest keccakDigest;
+
+    public Keccak256Hash() {
+        keccakDigest = new KeccakDigest(256);
+    }
+
+    /**
+     * 复制 prototype 的当前状态，比新建摘要少一次初始化
+     *
+     * @param prototype
+     */
+    public Keccak256Hash(KeccakDigest prototype) {
+        keccakDigest = new KeccakDigest(prototype);
+    }
+
+    @Override
+    public void write(byte[] input) throws IOException {
+        keccakDigest.update(input, 0, input.length);
+    }
+
+    @Override
+    public void write(byte[] input, int off, int len) throws IOException {
+        keccakDigest.update(input, off, len);
+    }
+
+    @Override
+    public byte[] sum(byte[] b) {
+        // 使用新digest进行计算，不改变原有digest
+        byte[] result = new byte[keccakDigest.getDigestSize()];
+        KeccakDigest temp = new KeccakDigest(keccakDigest);
+        temp.doFinal(result, 0);
+        if (b == null) {
+            return result;
+        }
+
+        byte[] combined = new byte[b.length + result.length];
+        System.arraycopy(b, 0, combined, 0, b.length);
+        System.arraycopy(result, 0, combined, b.length, result.length);
+        return combined;
+    }
+
+    @Override
+    public int doFinal(byte[] out, int off) {
+        // KeccakDigest.doFinal 写出结果后会自动重置
+        return keccakDigest.doFinal(out, off);
+    }
+
+    @Override
+    public void reset() {
+        keccakDigest.reset();
+    }
+
+    @Override
+    public int size() {
+        // Keccak-256 输出 256 位，即 32 字节
+        return keccakDigest.getDigestSize();
+    }
+
+    @Override
+    public int blockSize() {
+        // Keccak-256 的 rate 是 1088 位（136 字节）
+        return keccakDigest.getByteLength();
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.merkle.keccak;
+
+import org.bouncycastle.crypto.digests.KeccakDigest;
+import org.example.merkle.Hash;
+import org.example.merkle.HashStrategy;
+
+/**
+ * Keccak-256 哈希策略实现。与 sort 模式配合时，树根与证明和 OpenZeppelin 的 MerkleProof 兼容
+ */
+public class Keccak256Strategy implements HashStrategy {
+    // 新的 Hash 由原型复制得到，不重新初始化摘要
+    private final KeccakDigest prototype = new KeccakDigest(256);
+    // 每个线程复用一个 Keccak256Hash，避免为每个节点新建摘要
+    private final ThreadLocal<Hash> localHash = ThreadLocal.withInitial(this::createHash);
+
+    private Keccak256Strategy() {
+    }
+
+    public static Keccak256Strategy newInstance() {
+        return new Keccak256Strategy();
+    }
+
+    @Override
+    public Hash createHash() {
+        return new Keccak256Hash(prototype);
+    }
+
+    @Override
+    public Hash localHash() {
+        return localHash.get();
+    }
+
+    @Override
+    public int algorithmId() {
+        return ALGORITHM_KECCAK256;
+    }
+}
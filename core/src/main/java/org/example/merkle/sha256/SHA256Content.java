@@ -0,0 +1,57 @@
+package org.example.merkle.sha256;
+
+import org.example.merkle.Content;
+import org.example.merkle.Hash;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * SHA-256 内容实现，内容按 UTF-8 编码后计算哈希
+ */
+public class SHA256Content implements Content {
+    private static final SHA256Strategy DEFAULT_STRATEGY = SHA256Strategy.newInstance();
+
+    private final SHA256Strategy hashStrategy;
+    private String content;
+    // 缓存的内容哈希，内容变更时失效
+    private byte[] hash;
+
+    public SHA256Content(String content) {
+        this(content, DEFAULT_STRATEGY);
+    }
+
+    /**
+     * @param content
+     * @param hashStrategy 计算内容哈希所用的策略，用于指定 JCA 提供者
+     */
+    public SHA256Content(String content, SHA256Strategy hashStrategy) {
+        this.content = content;
+        this.hashStrategy = hashStrategy;
+    }
+
+    @Override
+    public byte[] calculateHash() throws Exception {
+        if (hash == null) {
+            Hash sha256Hash = hashStrategy.createHash();
+            sha256Hash.write(content.getBytes(StandardCharsets.UTF_8));
+            hash = new byte[sha256Hash.size()];
+            sha256Hash.doFinal(hash, 0);
+        }
+        return hash.clone();
+    }
+
+    @Override
+    public boolean equals(Content other) throws Exception {
+        return Arrays.equals(calculateHash(), other.calculateHash());
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+        this.hash = null;
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.merkle.sha256;
+
+import org.example.merkle.Hash;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 MessageDigest 的 Hash 包装。JDK 自带的 SUN 提供者在支持的 CPU 上使用 SHA-NI/ARMv8 内建指令。
+ * 提供者不支持克隆摘要时，sum 在同一提供者的新实例上重放 reset 之后写入的字节
+ */
+public class SHA256Hash implements Hash {
+    private final MessageDigest digest;
+    // 摘要不可克隆时记录 reset 之后写入的全部字节，否则为 null
+    private final ByteArrayOutputStream written;
+
+    /**
+     * @param digest 独占使用的 SHA-256 摘要实例
+     */
+    public SHA256Hash(MessageDigest digest) {
+        this(digest, isCloneable(digest));
+    }
+
+    /**
+     * SHA256Hash 由已知摘要能否克隆的调用方使用，避免每次构造都试探克隆
+     */
+    SHA256Hash(MessageDigest digest, boolean cloneable) {
+        this.digest = digest;
+        this.written = cloneable ? null : new ByteArrayOutputStream();
+    }
+
+    @Override
+    public void write(byte[] input) throws IOException {
+        write(input, 0, input.length);
+    }
+
+    @Override
+    public void write(byte[] input, int off, int len) throws IOException {
+        digest.update(input, off, len);
+        if (written != null) {
+            written.write(input, off, len);
+        }
+    }
+
+    @Override
+    public void write(ByteBuffer input) throws IOException {
+        if (written != null) {
+            Hash.super.write(input);
+            return;
+        }
+        // MessageDigest 直接读取缓冲区，包括文件映射的直接缓冲区
+        digest.update(input);
+    }
+
+    @Override
+    public byte[] sum(byte[] b) {
+        // 在副本上计算，不改变原有 digest
+        byte[] result = written == null ? cloneDigest().digest() : replay().digest();
+        if (b == null) {
+            return result;
+        }
+
+        byte[] combined = new byte[b.length + result.length];
+        System.arraycopy(b, 0, combined, 0, b.length);
+        System.arraycopy(result, 0, combined, b.length, result.length);
+        return combined;
+    }
+
+    @Override
+    public int doFinal(byte[] out, int off) {
+        // MessageDigest.digest 写出结果后会自动重置
+        try {
+            return digest.digest(out, off, digest.getDigestLength());
+        } catch (DigestException e) {
+            throw new IllegalArgumentException("Output buffer too small", e);
+        } finally {
+            if (written != null) {
+                written.reset();
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        digest.reset();
+        if (written != null) {
+            written.reset();
+        }
+    }
+
+    private MessageDigest cloneDigest() {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            // 构造时已确认可以克隆
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * replay 新建同一提供者的摘要并写入 reset 之后的全部字节
+     */
+    private MessageDigest replay() {
+        MessageDigest copy;
+        try {
+            copy = MessageDigest.getInstance(digest.getAlgorithm(), digest.getProvider());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        copy.update(written.toByteArray());
+        return copy;
+    }
+
+    static boolean isCloneable(MessageDigest digest) {
+        try {
+            digest.clone();
+            return true;
+        } catch (CloneNotSupportedException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int size() {
+        // SHA-256 输出 256 位，即 32 字节
+        return digest.getDigestLength();
+    }
+
+    @Override
+    public int blockSize() {
+        // SHA-256 的块大小是 512 位（64 字节）
+        return 64;
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.merkle.sha256;
+
+import org.example.merkle.Hash;
+import org.example.merkle.HashStrategy;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.Provider;
+
+/**
+ * SHA-256 哈希策略实现，可通过 JCA 提供者选择摘要实现。新的 Hash 由原型摘要克隆得到，不再查找提供者
+ */
+public class SHA256Strategy implements HashStrategy {
+    static final String ALGORITHM = "SHA-256";
+
+    private final MessageDigest prototype;
+    private final boolean cloneable;
+    // 每个线程复用一个 SHA256Hash，避免为每个节点新建摘要
+    private final ThreadLocal<Hash> localHash = ThreadLocal.withInitial(this::newHash);
+
+    private SHA256Strategy(MessageDigest prototype) {
+        this.prototype = prototype;
+        this.cloneable = SHA256Hash.isCloneable(prototype);
+    }
+
+    /**
+     * newInstance 使用优先级最高的 SHA-256 提供者
+     *
+     * @return
+     */
+    public static SHA256Strategy newInstance() {
+        try {
+            return new SHA256Strategy(MessageDigest.getInstance(ALGORITHM));
+        } catch (NoSuchAlgorithmException e) {
+            // 每个 Java 平台都必须支持 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * newInstance 使用指定名称的 JCA 提供者
+     *
+     * @param provider
+     * @return
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     */
+    public static SHA256Strategy newInstance(String provider) throws NoSuchAlgorithmException, NoSuchProviderException {
+        return new SHA256Strategy(MessageDigest.getInstance(ALGORITHM, provider));
+    }
+
+    /**
+     * newInstance 使用给定的 JCA 提供者
+     *
+     * @param provider
+     * @return
+     * @throws NoSuchAlgorithmException
+     */
+    public static SHA256Strategy newInstance(Provider provider) throws NoSuchAlgorithmException {
+        return new SHA256Strategy(MessageDigest.getInstance(ALGORITHM, provider));
+    }
+
+    @Override
+    public Hash createHash() {
+        return newHash();
+    }
+
+    @Override
+    public Hash localHash() {
+        return localHash.get();
+    }
+
+    @Override
+    public int algorithmId() {
+        return ALGORITHM_SHA256;
+    }
+
+    /**
+     * getProvider 返回摘要所用的 JCA 提供者
+     *
+     * @return
+     */
+    public Provider getProvider() {
+        return prototype.getProvider();
+    }
+
+    private Hash newHash() {
+        return new SHA256Hash(copy(prototype), cloneable);
+    }
+
+    /**
+     * copy 克隆原型摘要；提供者不支持克隆时新建同一提供者的实例
+     */
+    private static MessageDigest copy(MessageDigest prototype) {
+        try {
+            return (MessageDigest) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            try {
+                return MessageDigest.getInstance(prototype.getAlgorithm(), prototype.getProvider());
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
@@ -9,6 +9,8 @@ import java.util.Arrays;
  */
 public class SM3Content implements Content {
     private String content;
+    // 缓存的内容哈希，内容变更时失效
+    private byte[] hash;
 
     public SM3Content(String content) {
         this.content = content;
@@ -16,9 +18,12 @@ public class SM3Content implements Content {
 
     @Override
     public byte[] calculateHash() throws Exception {
-        SM3Hash sm3Hash = new SM3Hash();
-        sm3Hash.write(content.getBytes());
-        return sm3Hash.sum(null);
+        if (hash == null) {
+            SM3Hash sm3Hash = new SM3Hash();
+            sm3Hash.write(content.getBytes());
+            hash = sm3Hash.sum(null);
+        }
+        return hash.clone();
     }
 
     @Override
@@ -33,5 +38,6 @@ public class SM3Content implements Content {
 
     public void setContent(String content) {
         this.content = content;
+        this.hash = null;
     }
 }
@@ -21,6 +21,11 @@ public class SM3Hash implements Hash {
         sm3Digest.update(input, 0, input.length);
     }
 
+    @Override
+    public void write(byte[] input, int off, int len) throws IOException {
+        sm3Digest.update(input, off, len);
+    }
+
     @Override
     public byte[] sum(byte[] b) {
         // 使用新digest进行计算，不改变原有digest
@@ -37,6 +42,12 @@ public class SM3Hash implements Hash {
         return combined;
     }
 
+    @Override
+    public int doFinal(byte[] out, int off) {
+        // SM3Digest.doFinal 写出结果后会自动重置
+        return sm3Digest.doFinal(out, off);
+    }
+
     @Override
     public void reset() {
         // 重置 digest
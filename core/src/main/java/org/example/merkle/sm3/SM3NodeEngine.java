@@ -0,0 +1,261 @@
+package org.example.merkle.sm3;
+
+import org.example.merkle.HashStrategy;
+
+/**
+ * SM3NodeEngine 专门计算两个 32 字节子节点哈希拼接后的 SM3，结果与 SM3Hash 逐位相同。
+ * 64 字节的输入恰好是一个完整分组加一个固定的填充分组，填充分组的消息扩展在类加载时预先计算；
+ * 子节点哈希直接按大端读成消息字，不经过 SM3Digest 的缓冲区。hashLevel 每次交错计算两对子节点，
+ * 两条互不依赖的压缩链可以被 CPU 并行发射。实例持有扩展用的暂存数组，不是线程安全的
+ */
+public final class SM3NodeEngine {
+    /** 每个子节点哈希的字节数 */
+    public static final int HASH_SIZE = 32;
+
+    private static final int[] IV = {
+            0x7380166f, 0x4914b2b9, 0x172442d7, 0xda8a0600,
+            0xa96f30bc, 0x163138aa, 0xe38dee4d, 0xb0fb0e4e
+    };
+    // T_j 循环左移 j mod 32 位
+    private static final int[] T = new int[64];
+    // 64 字节消息的填充分组：0x80 后全 0，末尾 64 位长度为 512
+    private static final int[] PAD_W = new int[68];
+    private static final int[] PAD_WP = new int[64];
+
+    static {
+        for (int j = 0; j < 64; j++) {
+            T[j] = Integer.rotateLeft(j < 16 ? 0x79cc4519 : 0x7a879d8a, j % 32);
+        }
+        PAD_W[0] = 0x80000000;
+        PAD_W[15] = 512;
+        expand(PAD_W, PAD_WP);
+    }
+
+    private final int[] w0 = new int[68];
+    private final int[] wp0 = new int[64];
+    private final int[] w1 = new int[68];
+    private final int[] wp1 = new int[64];
+    private final int[] v0 = new int[8];
+    private final int[] v1 = new int[8];
+
+    /**
+     * hashPair 计算 left 与 right 两个 32 字节哈希拼接后的 SM3 并写入 out；sort 为 true 时按无符号大端序较小者在前
+     *
+     * @param sort
+     * @param left
+     * @param leftOff
+     * @param right
+     * @param rightOff
+     * @param out
+     * @param outOff
+     */
+    public void hashPair(boolean sort, byte[] left, int leftOff, byte[] right, int rightOff, byte[] out, int outOff) {
+        if (sort && HashStrategy.compare(left, leftOff, right, rightOff, HASH_SIZE) >= 0) {
+            load(right, rightOff, left, leftOff, w0, wp0);
+        } else {
+            load(left, leftOff, right, rightOff, w0, wp0);
+        }
+        System.arraycopy(IV, 0, v0, 0, 8);
+        compress(v0, w0, wp0);
+        compress(v0, PAD_W, PAD_WP);
+        store(v0, out, outOff);
+    }
+
+    /**
+     * hashLevel 计算一层中 [from, to) 的父节点：第 i 个父节点由子节点 2i 与 2i+1 计算，2i+1 越界时与自身配对。
+     * 子节点与父节点均为连续存放的 32 字节哈希
+     *
+     * @param sort
+     * @param children
+     * @param childCount
+     * @param parents
+     * @param from
+     * @param to
+     */
+    public void hashLevel(boolean sort, byte[] children, int childCount, byte[] parents, int from, int to) {
+        int i = from;
+        for (; i + 1 < to; i += 2) {
+            loadChildren(sort, children, childCount, i, w0, wp0);
+            loadChildren(sort, children, childCount, i + 1, w1, wp1);
+            System.arraycopy(IV, 0, v0, 0, 8);
+            System.arraycopy(IV, 0, v1, 0, 8);
+            compress2(v0, w0, wp0, v1, w1, wp1);
+            compress2(v0, PAD_W, PAD_WP, v1, PAD_W, PAD_WP);
+            store(v0, parents, i * HASH_SIZE);
+            store(v1, parents, (i + 1) * HASH_SIZE);
+        }
+        if (i < to) {
+            int left = 2 * i;
+            int right = left + 1 < childCount ? left + 1 : left;
+            hashPair(sort, children, left * HASH_SIZE, children, right * HASH_SIZE, parents, i * HASH_SIZE);
+        }
+    }
+
+    private static void loadChildren(boolean sort, byte[] children, int childCount, int parent, int[] w, int[] wp) {
+        int left = 2 * parent * HASH_SIZE;
+        int right = 2 * parent + 1 < childCount ? left + HASH_SIZE : left;
+        if (sort && HashStrategy.compare(children, left, children, right, HASH_SIZE) >= 0) {
+            load(children, right, children, left, w, wp);
+        } else {
+            load(children, left, children, right, w, wp);
+        }
+    }
+
+    private static void load(byte[] first, int firstOff, byte[] second, int secondOff, int[] w, int[] wp) {
+        for (int j = 0; j < 8; j++) {
+            w[j] = readInt(first, firstOff + 4 * j);
+            w[j + 8] = readInt(second, secondOff + 4 * j);
+        }
+        expand(w, wp);
+    }
+
+    private static int readInt(byte[] b, int off) {
+        return (b[off] << 24) | ((b[off + 1] & 0xff) << 16) | ((b[off + 2] & 0xff) << 8) | (b[off + 3] & 0xff);
+    }
+
+    private static void store(int[] v, byte[] out, int off) {
+        for (int j = 0; j < 8; j++) {
+            int x = v[j];
+            out[off + 4 * j] = (byte) (x >>> 24);
+            out[off + 4 * j + 1] = (byte) (x >>> 16);
+            out[off + 4 * j + 2] = (byte) (x >>> 8);
+            out[off + 4 * j + 3] = (byte) x;
+        }
+    }
+
+    private static void expand(int[] w, int[] wp) {
+        for (int j = 16; j < 68; j++) {
+            w[j] = p1(w[j - 16] ^ w[j - 9] ^ Integer.rotateLeft(w[j - 3], 15))
+                    ^ Integer.rotateLeft(w[j - 13], 7) ^ w[j - 6];
+        }
+        for (int j = 0; j < 64; j++) {
+            wp[j] = w[j] ^ w[j + 4];
+        }
+    }
+
+    private static int p0(int x) {
+        return x ^ Integer.rotateLeft(x, 9) ^ Integer.rotateLeft(x, 17);
+    }
+
+    private static int p1(int x) {
+        return x ^ Integer.rotateLeft(x, 15) ^ Integer.rotateLeft(x, 23);
+    }
+
+    private static void compress(int[] v, int[] w, int[] wp) {
+        int a = v[0], b = v[1], c = v[2], d = v[3], e = v[4], f = v[5], g = v[6], h = v[7];
+        for (int j = 0; j < 16; j++) {
+            int a12 = Integer.rotateLeft(a, 12);
+            int ss1 = Integer.rotateLeft(a12 + e + T[j], 7);
+            int tt1 = (a ^ b ^ c) + d + (ss1 ^ a12) + wp[j];
+            int tt2 = (e ^ f ^ g) + h + ss1 + w[j];
+            d = c;
+            c = Integer.rotateLeft(b, 9);
+            b = a;
+            a = tt1;
+            h = g;
+            g = Integer.rotateLeft(f, 19);
+            f = e;
+            e = p0(tt2);
+        }
+        for (int j = 16; j < 64; j++) {
+            int a12 = Integer.rotateLeft(a, 12);
+            int ss1 = Integer.rotateLeft(a12 + e + T[j], 7);
+            int tt1 = ((a & b) | (a & c) | (b & c)) + d + (ss1 ^ a12) + wp[j];
+            int tt2 = ((e & f) | (~e & g)) + h + ss1 + w[j];
+            d = c;
+            c = Integer.rotateLeft(b, 9);
+            b = a;
+            a = tt1;
+            h = g;
+            g = Integer.rotateLeft(f, 19);
+            f = e;
+            e = p0(tt2);
+        }
+        v[0] ^= a;
+        v[1] ^= b;
+        v[2] ^= c;
+        v[3] ^= d;
+        v[4] ^= e;
+        v[5] ^= f;
+        v[6] ^= g;
+        v[7] ^= h;
+    }
+
+    /**
+     * compress2 交错执行两条独立的压缩，每一轮两条链的运算互不依赖
+     */
+    private static void compress2(int[] v0, int[] w0, int[] wp0, int[] v1, int[] w1, int[] wp1) {
+        int a0 = v0[0], b0 = v0[1], c0 = v0[2], d0 = v0[3], e0 = v0[4], f0 = v0[5], g0 = v0[6], h0 = v0[7];
+        int a1 = v1[0], b1 = v1[1], c1 = v1[2], d1 = v1[3], e1 = v1[4], f1 = v1[5], g1 = v1[6], h1 = v1[7];
+        for (int j = 0; j < 16; j++) {
+            int t = T[j];
+            int a12x = Integer.rotateLeft(a0, 12);
+            int a12y = Integer.rotateLeft(a1, 12);
+            int ss1x = Integer.rotateLeft(a12x + e0 + t, 7);
+            int ss1y = Integer.rotateLeft(a12y + e1 + t, 7);
+            int tt1x = (a0 ^ b0 ^ c0) + d0 + (ss1x ^ a12x) + wp0[j];
+            int tt1y = (a1 ^ b1 ^ c1) + d1 + (ss1y ^ a12y) + wp1[j];
+            int tt2x = (e0 ^ f0 ^ g0) + h0 + ss1x + w0[j];
+            int tt2y = (e1 ^ f1 ^ g1) + h1 + ss1y + w1[j];
+            d0 = c0;
+            d1 = c1;
+            c0 = Integer.rotateLeft(b0, 9);
+            c1 = Integer.rotateLeft(b1, 9);
+            b0 = a0;
+            b1 = a1;
+            a0 = tt1x;
+            a1 = tt1y;
+            h0 = g0;
+            h1 = g1;
+            g0 = Integer.rotateLeft(f0, 19);
+            g1 = Integer.rotateLeft(f1, 19);
+            f0 = e0;
+            f1 = e1;
+            e0 = p0(tt2x);
+            e1 = p0(tt2y);
+        }
+        for (int j = 16; j < 64; j++) {
+            int t = T[j];
+            int a12x = Integer.rotateLeft(a0, 12);
+            int a12y = Integer.rotateLeft(a1, 12);
+            int ss1x = Integer.rotateLeft(a12x + e0 + t, 7);
+            int ss1y = Integer.rotateLeft(a12y + e1 + t, 7);
+            int tt1x = ((a0 & b0) | (a0 & c0) | (b0 & c0)) + d0 + (ss1x ^ a12x) + wp0[j];
+            int tt1y = ((a1 & b1) | (a1 & c1) | (b1 & c1)) + d1 + (ss1y ^ a12y) + wp1[j];
+            int tt2x = ((e0 & f0) | (~e0 & g0)) + h0 + ss1x + w0[j];
+            int tt2y = ((e1 & f1) | (~e1 & g1)) + h1 + ss1y + w1[j];
+            d0 = c0;
+            d1 = c1;
+            c0 = Integer.rotateLeft(b0, 9);
+            c1 = Integer.rotateLeft(b1, 9);
+            b0 = a0;
+            b1 = a1;
+            a0 = tt1x;
+            a1 = tt1y;
+            h0 = g0;
+            h1 = g1;
+            g0 = Integer.rotateLeft(f0, 19);
+            g1 = Integer.rotateLeft(f1, 19);
+            f0 = e0;
+            f1 = e1;
+            e0 = p0(tt2x);
+            e1 = p0(tt2y);
+        }
+        v0[0] ^= a0;
+        v0[1] ^= b0;
+        v0[2] ^= c0;
+        v0[3] ^= d0;
+        v0[4] ^= e0;
+        v0[5] ^= f0;
+        v0[6] ^= g0;
+        v0[7] ^= h0;
+        v1[0] ^= a1;
+        v1[1] ^= b1;
+        v1[2] ^= c1;
+        v1[3] ^= d1;
+        v1[4] ^= e1;
+        v1[5] ^= f1;
+        v1[6] ^= g1;
+        v1[7] ^= h1;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.merkle.sm3;
+
+import org.example.merkle.Hash;
+import org.example.merkle.HashStrategy;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SM3 哈希策略实现
+ */
+public class SM3Strategy implements HashStrategy {
+    // 每个线程复用一个 SM3Hash，避免为每个节点新建摘要
+    private final ThreadLocal<Hash> localHash = ThreadLocal.withInitial(SM3Hash::new);
+    // 32 字节子节点走专用的节点引擎，不经过 SM3Digest
+    private final ThreadLocal<SM3NodeEngine> localEngine = ThreadLocal.withInitial(SM3NodeEngine::new);
+
+    private SM3Strategy() {
+    }
+
+    public static SM3Strategy newInstance() {
+        return new SM3Strategy();
+    }
+
+    @Override
+    public Hash createHash() throws NoSuchAlgorithmException {
+        return new SM3Hash();
+    }
+
+    @Override
+    public Hash localHash() {
+        return localHash.get();
+    }
+
+    @Override
+    public int algorithmId() {
+        return ALGORITHM_SM3;
+    }
+
+    /**
+     * combine 子节点为 32 字节时由 SM3NodeEngine 直接计算，不使用也不改变 hash，其余长度走通用实现
+     */
+    @Override
+    public void combine(Hash hash, boolean sort, byte[] left, int leftOff, byte[] right, int rightOff, int len,
+                        byte[] out, int outOff) throws IOException {
+        if (len == SM3NodeEngine.HASH_SIZE) {
+            localEngine.get().hashPair(sort, left, leftOff, right, rightOff, out, outOff);
+        } else {
+            HashStrategy.super.combine(hash, sort, left, leftOff, right, rightOff, len, out, outOff);
+        }
+    }
+
+    /**
+     * combineLevel 子节点为 32 字节时由 SM3NodeEngine 每次交错计算两个父节点
+     */
+    @Override
+    public void combineLevel(Hash hash, boolean sort, byte[] children, int childCount, int childWidth,
+                             byte[] parents, int parentWidth, int from, int to) throws IOException {
+        if (childWidth == SM3NodeEngine.HASH_SIZE && parentWidth == SM3NodeEngine.HASH_SIZE) {
+            localEngine.get().hashLevel(sort, children, childCount, parents, from, to);
+        } else {
+            HashStrategy.super.combineLevel(hash, sort, children, childCount, childWidth, parents, parentWidth,
+                    from, to);
+        }
+    }
+}
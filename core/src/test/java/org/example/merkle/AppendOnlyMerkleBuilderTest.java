@@ -0,0 +1,30 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * AppendOnlyMerkleBuilderTest
+ */
+public class AppendOnlyMerkleBuilderTest {
+    @Test
+    public void testMerkleTree_AppendOnlyBuilder() throws Exception {
+        for (boolean sort : new boolean[]{false, true}) {
+            List<Content> contents = contents(70);
+            AppendOnlyMerkleBuilder builder = AppendOnlyMerkleBuilder.newBuilder(SM3Strategy.newInstance(), sort);
+            for (int size = 1; size <= contents.size(); size++) {
+                builder.append(contents.get(size - 1));
+                byte[] expected = MerkleTree.newTree(contents.subList(0, size), SM3Strategy.newInstance(), sort)
+                        .getMerkleRoot();
+                assertArrayEquals("size " + size, expected, builder.currentRoot());
+                assertTrue(builder.frontierSize() <= 7);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.merkle;
+
+import org.example.merkle.sha256.SHA256Strategy;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ChunkedFileTreeTest
+ */
+public class ChunkedFileTreeTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testChunkedFileTree_RangeProofs() throws Exception {
+        byte[] data = new byte[100 * 1024 + 123];
+        new Random(3).nextBytes(data);
+        Path path = folder.newFile().toPath();
+        Files.write(path, data);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (HashStrategy strategy : new HashStrategy[]{SM3Strategy.newInstance(), SHA256Strategy.newInstance()}) {
+                for (boolean sort : new boolean[]{false, true}) {
+                    try (ChunkedFileTree tree = ChunkedFileTree.newTree(path, 1024, strategy, sort, pool)) {
+                        assertEquals(101, tree.getChunkCount());
+                        List<Content> chunks = new ArrayList<>();
+                        for (int i = 0; i < tree.getChunkCount(); i++) {
+                            chunks.add(tree.getChunk(i));
+                        }
+                        byte[] root = tree.getRoot();
+                        assertArrayEquals(MerkleTree.newTree(chunks, strategy, sort).getMerkleRoot(), root);
+                        try (ChunkedFileTree sequential = ChunkedFileTree.newTree(path, 1024, strategy, sort)) {
+                            assertArrayEquals(root, sequential.getRoot());
+                        }
+
+                        long[][] ranges = {{0, 1}, {0, 1024}, {1000, 50}, {5000, 40000}, {data.length - 1, 1},
+                                {0, data.length}, {102400, 123}};
+                        for (long[] range : ranges) {
+                            ByteRangeProof proof = tree.proveRange(range[0], (int) range[1]);
+                            byte[] bytes = tree.readRange(range[0], (int) range[1]);
+                            assertArrayEquals(Arrays.copyOfRange(data, (int) range[0],
+                                    (int) (range[0] + range[1])), bytes);
+                            assertTrue(proof.verify(root, bytes, strategy, sort));
+                            assertTrue(proof.getProof().size() <= 2 * tree.getCompactTree().getLevelCount());
+                            bytes[bytes.length / 2] ^= 1;
+                            assertFalse(proof.verify(root, bytes, strategy, sort));
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.example.merkle.MerkleTestSupport.assertPathEquals;
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.example.merkle.MerkleTestSupport.referencePath;
+import static org.example.merkle.MerkleTestSupport.referenceRoot;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * CompactTreeTest
+ */
+public class CompactTreeTest {
+    @Test
+    public void testMerkleTree_CompactTree() throws Exception {
+        for (boolean sort : new boolean[]{false, true}) {
+            for (int size = 1; size <= 33; size++) {
+                List<Content> contents = contents(size);
+                MerkleTree tree = MerkleTree.newTree(contents, SM3Strategy.newInstance(), sort);
+                MerkleTree compactTree = MerkleTree.newCompactTree(contents, SM3Strategy.newInstance(), sort);
+
+                assertArrayEquals("size " + size, referenceRoot(contents, sort), tree.getMerkleRoot());
+                assertArrayEquals("size " + size, tree.getMerkleRoot(), compactTree.getMerkleRoot());
+                assertNull(compactTree.getRoot());
+                assertTrue(compactTree.verifyTree());
+                assertTrue(compactTree.memoryUsage() < tree.memoryUsage());
+                for (int i = 0; i < size; i++) {
+                    assertTrue(compactTree.verifyContent(contents.get(i)));
+                    assertPathEquals(referencePath(tree, i), compactTree.getMerklePath(i));
+                }
+            }
+        }
+    }
+}
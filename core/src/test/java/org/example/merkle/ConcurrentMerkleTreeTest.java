@@ -0,0 +1,124 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.example.merkle.MerkleTestSupport.assertPathEquals;
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * ConcurrentMerkleTreeTest
+ */
+public class ConcurrentMerkleTreeTest {
+    @Test
+    public void testConcurrentMerkleTree() throws Exception {
+        HashStrategy strategy = SM3Strategy.newInstance();
+        int size = 37;
+        List<Content> contents = contents(size);
+        ConcurrentMerkleTree tree = ConcurrentMerkleTree.newTree(contents, strategy, true);
+        assertArrayEquals(MerkleTree.newTree(contents, strategy, true).getMerkleRoot(), tree.getMerkleRoot());
+
+        int writers = 4;
+        int rounds = 50;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        // 读者在任意时刻取得的快照都必须自洽：路径能把该快照中的叶子合并为该快照的根
+        Thread reader = new Thread(() -> {
+            try {
+                int i = 0;
+                while (!done.get()) {
+                    MerkleTreeVersion snapshot = tree.snapshot();
+                    int index = i++ % size;
+                    byte[] leafHash = snapshot.getLeafHash(index);
+                    assertTrue(MerkleProofVerifier.verify(snapshot.getMerkleRoot(), leafHash,
+                            snapshot.getMerklePath(index), strategy, true));
+                    assertEquals(index, snapshot.indexOf(leafHash));
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    for (int r = 0; r < rounds; r++) {
+                        // 每个写者只写自己的叶子，最终内容与提交顺序无关
+                        Map<Integer, Content> updates = new HashMap<>();
+                        for (int i = writer; i < size; i += writers) {
+                            updates.put(i, new SM3Content("w" + writer + "-r" + r + "-" + i));
+                        }
+                        MerkleTreeVersion published = tree.update(updates);
+                        assertSame(updates.get(writer), published.getContent(writer));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            done.set(true);
+            reader.join();
+            executor.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        for (int i = 0; i < size; i++) {
+            contents.set(i, new SM3Content("w" + i % writers + "-r" + (rounds - 1) + "-" + i));
+        }
+        MerkleTree expected = MerkleTree.newTree(contents, strategy, true);
+        assertArrayEquals(expected.getMerkleRoot(), tree.getMerkleRoot());
+        assertTrue(tree.snapshot().getVersion() <= writers * rounds);
+        for (int i = 0; i < size; i++) {
+            assertEquals(i, tree.indexOf(contents.get(i).calculateHash()));
+            assertPathEquals(expected.getMerklePath(i), tree.getMerklePath(contents.get(i)));
+        }
+
+        // 每个版本持有自己的索引，旧快照在之后的提交中保持不变
+        MerkleTreeVersion before = tree.snapshot();
+        // 重复内容：覆盖第一次出现后索引指向剩余的最小下标
+        tree.updateLeaf(3, contents.get(20));
+        tree.updateLeaf(10, contents.get(20));
+        assertEquals(3, tree.indexOf(contents.get(20).calculateHash()));
+        tree.updateLeaf(3, new SM3Content("unique"));
+        assertEquals(10, tree.indexOf(contents.get(20).calculateHash()));
+        assertEquals(-1, tree.indexOf(contents.get(3).calculateHash()));
+        assertNull(tree.getMerklePath(new SM3Content("missing")));
+        assertEquals(3, before.indexOf(contents.get(3).calculateHash()));
+        assertEquals(20, before.indexOf(contents.get(20).calculateHash()));
+
+        MerkleTreeVersion rebuilt = tree.rebuild(contents(5));
+        assertEquals(5, rebuilt.getLeafCount());
+        assertArrayEquals(MerkleTree.newTree(contents(5), strategy, true).getMerkleRoot(),
+                tree.getMerkleRoot());
+        assertEquals(4, tree.indexOf(contents(5).get(4).calculateHash()));
+        try {
+            tree.updateLeaf(5, new SM3Content("out of range"));
+            fail();
+        } catch (IndexOutOfBoundsException expected5) {
+        }
+    }
+}
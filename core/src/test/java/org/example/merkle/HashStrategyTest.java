@@ -0,0 +1,184 @@
+package org.example.merkle;
+
+import org.example.merkle.keccak.Keccak256Content;
+import org.example.merkle.keccak.Keccak256Strategy;
+import org.example.merkle.sha256.SHA256Content;
+import org.example.merkle.sha256.SHA256Strategy;
+import org.example.merkle.sm3.SM3Hash;
+import org.example.merkle.sm3.SM3NodeEngine;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.MessageDigestSpi;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.example.merkle.MerkleTestSupport.referenceRoot;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * HashStrategyTest
+ */
+public class HashStrategyTest {
+
+    @Test
+    public void testSHA256_Vectors() throws Exception {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                hex(new SHA256Content("abc").calculateHash()));
+        SHA256Strategy sun = SHA256Strategy.newInstance("SUN");
+        assertEquals("SUN", sun.getProvider().getName());
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                hex(new SHA256Content("abc", sun).calculateHash()));
+
+        // sum 不改变状态，doFinal 写出后重置
+        Hash hash = sun.createHash();
+        hash.write("ab".getBytes(StandardCharsets.UTF_8));
+        hash.sum(null);
+        hash.write("c".getBytes(StandardCharsets.UTF_8));
+        byte[] out = new byte[hash.size()];
+        hash.doFinal(out, 0);
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", hex(out));
+        hash.write("abc".getBytes(StandardCharsets.UTF_8));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", hex(hash.sum(null)));
+    }
+
+    @Test
+    public void testSHA256_NonCloneableProvider() throws Exception {
+        SHA256Strategy strategy = SHA256Strategy.newInstance(new NonCloneableProvider());
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                hex(new SHA256Content("abc", strategy).calculateHash()));
+
+        // 不能克隆时 sum 重放已写入的字节，同样不改变状态
+        Hash hash = strategy.createHash();
+        hash.write("ab".getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(new SHA256Content("ab").calculateHash(), hash.sum(null));
+        hash.write(ByteBuffer.wrap("c".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", hex(hash.sum(null)));
+        byte[] out = new byte[hash.size()];
+        hash.doFinal(out, 0);
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", hex(out));
+        hash.write("abc".getBytes(StandardCharsets.UTF_8));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", hex(hash.sum(null)));
+        checkTree(strategy, value -> new SHA256Content(value, strategy));
+    }
+
+    /**
+     * NonCloneableProvider 提供不支持克隆的 SHA-256，计算委托给 JDK 自带实现
+     */
+    private static final class NonCloneableProvider extends Provider {
+        NonCloneableProvider() {
+            super("NonCloneable", 1.0, "SHA-256 without clone support");
+            put("MessageDigest.SHA-256", NonCloneableDigest.class.getName());
+        }
+    }
+
+    public static final class NonCloneableDigest extends MessageDigestSpi {
+        private final MessageDigest delegate;
+
+        public NonCloneableDigest() throws NoSuchAlgorithmException {
+            delegate = MessageDigest.getInstance("SHA-256", Security.getProvider("SUN"));
+        }
+
+        @Override
+        protected void engineUpdate(byte input) {
+            delegate.update(input);
+        }
+
+        @Override
+        protected void engineUpdate(byte[] input, int offset, int len) {
+            delegate.update(input, offset, len);
+        }
+
+        @Override
+        protected byte[] engineDigest() {
+            return delegate.digest();
+        }
+
+        @Override
+        protected int engineGetDigestLength() {
+            return delegate.getDigestLength();
+        }
+
+        @Override
+        protected void engineReset() {
+            delegate.reset();
+        }
+    }
+
+    @Test
+    public void testKeccak256_Vectors() throws Exception {
+        assertEquals("c5d2460186f7233c927e7db2dcc703c0e500b653ca82273b7bfad8045d85a470",
+                hex(new Keccak256Content("").calculateHash()));
+        assertEquals("4e03657aea45a94fc7d47ba826c8d667c0d1e6e33a64a036ec44f58fa12d6c45",
+                hex(new Keccak256Content("abc").calculateHash()));
+    }
+
+    @Test
+    public void testSM3NodeEngine_MatchesDigest() throws Exception {
+        Random random = new Random(17);
+        SM3NodeEngine engine = new SM3NodeEngine();
+        for (boolean sort : new boolean[]{false, true}) {
+            for (int childCount = 1; childCount <= 9; childCount++) {
+                byte[] children = new byte[childCount * 32];
+                random.nextBytes(children);
+                if (childCount > 2) {
+                    // 相等的子节点覆盖 sort 比较相等的分支
+                    System.arraycopy(children, 0, children, 32, 32);
+                }
+                int parentCount = (childCount + 1) / 2;
+                byte[] parents = new byte[parentCount * 32];
+                engine.hashLevel(sort, children, childCount, parents, 0, parentCount);
+                for (int i = 0; i < parentCount; i++) {
+                    int right = 2 * i + 1 < childCount ? 2 * i + 1 : 2 * i;
+                    byte[] left = Arrays.copyOfRange(children, 2 * i * 32, 2 * i * 32 + 32);
+                    byte[] rightHash = Arrays.copyOfRange(children, right * 32, right * 32 + 32);
+                    SM3Hash reference = new SM3Hash();
+                    reference.write(MerkleTree.sortedConcat(sort, left, rightHash));
+                    byte[] expected = reference.sum(null);
+                    assertArrayEquals(expected, Arrays.copyOfRange(parents, i * 32, i * 32 + 32));
+
+                    byte[] single = new byte[32];
+                    engine.hashPair(sort, left, 0, rightHash, 0, single, 0);
+                    assertArrayEquals(expected, single);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStrategies_TreeProofs() throws Exception {
+        checkTree(SHA256Strategy.newInstance(), SHA256Content::new);
+        checkTree(Keccak256Strategy.newInstance(), Keccak256Content::new);
+    }
+
+    private static void checkTree(HashStrategy strategy, Function<String, Content> factory) throws Exception {
+        for (boolean sort : new boolean[]{false, true}) {
+            List<Content> contents = new ArrayList<>();
+            for (int i = 0; i < 11; i++) {
+                contents.add(factory.apply("content-" + i));
+            }
+            MerkleTree tree = MerkleTree.newTree(contents, strategy, sort);
+            assertArrayEquals(referenceRoot(contents, sort, strategy), tree.getMerkleRoot());
+            assertTrue(tree.verifyTree());
+            for (int i = 0; i < contents.size(); i++) {
+                assertTrue(MerkleProofVerifier.verify(tree.getMerkleRoot(), contents.get(i), tree.getMerklePath(i),
+                        strategy, sort));
+            }
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return String.format("%064x", new BigInteger(1, bytes));
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * LeafHashingPipelineTest
+ */
+public class LeafHashingPipelineTest {
+    @Test
+    public void testLeafHashingPipeline() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            LeafHashingPipeline pipeline = LeafHashingPipeline.newPipeline(executor, 8);
+            for (boolean sort : new boolean[]{false, true}) {
+                List<Content> contents = contents(301);
+                byte[] expected = MerkleTree.newTree(contents, SM3Strategy.newInstance(), sort).getMerkleRoot();
+                assertArrayEquals(expected, pipeline.buildRoot(contents.iterator(), SM3Strategy.newInstance(), sort));
+                assertArrayEquals(expected,
+                        pipeline.buildCompactTree(contents.iterator(), SM3Strategy.newInstance(), sort).getRoot());
+            }
+
+            // 读取量领先下游交付量的部分不超过在途上限，外加提交方手中正等待提交的一个
+            List<Content> contents = contents(100);
+            int[] read = new int[1];
+            Iterator<Content> source = new Iterator<Content>() {
+                @Override
+                public boolean hasNext() {
+                    return read[0] < contents.size();
+                }
+
+                @Override
+                public Content next() {
+                    return contents.get(read[0]++);
+                }
+            };
+            List<byte[]> delivered = new ArrayList<>();
+            long count = pipeline.feed(source, (index, leafHash) -> {
+                assertEquals(delivered.size(), index);
+                assertTrue(read[0] - index <= 8 + 1);
+                delivered.add(leafHash);
+            });
+            assertEquals(100, count);
+            for (int i = 0; i < contents.size(); i++) {
+                assertArrayEquals(contents.get(i).calculateHash(), delivered.get(i));
+            }
+
+            List<Content> failing = contents(20);
+            failing.set(5, new SM3Content(null));
+            try {
+                pipeline.buildRoot(failing.iterator(), SM3Strategy.newInstance(), false);
+                fail("Expected leaf hashing failure");
+            } catch (NullPointerException expectedFailure) {
+                // 叶子哈希的异常原样抛出
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
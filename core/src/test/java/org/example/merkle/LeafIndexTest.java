@@ -0,0 +1,32 @@
+package org.example.merkle;
+
+import org.example.merkle.SM3Test.TestCase;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import static org.example.merkle.MerkleTestSupport.assertPathEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * LeafIndexTest
+ */
+public class LeafIndexTest {
+    @Test
+    public void testMerkleTree_LeafIndex() throws Exception {
+        for (TestCase testCase : SM3Test.table) {
+            MerkleTree tree = MerkleTree.newTree(testCase.contents, SM3Strategy.newInstance(), testCase.sort);
+
+            for (int i = 0; i < testCase.contents.size(); i++) {
+                byte[] leafHash = testCase.contents.get(i).calculateHash();
+                assertEquals("Test case " + testCase.testCaseId + " failed", i, tree.indexOf(leafHash));
+                assertTrue(tree.verifyContent(i));
+                assertTrue(tree.verifyContent(leafHash));
+                assertPathEquals(tree.getMerklePath(testCase.contents.get(i)), tree.getMerklePath(i));
+            }
+            assertEquals(-1, tree.indexOf(testCase.notInContents.calculateHash()));
+            assertNull(tree.getMerklePath(testCase.notInContents.calculateHash()));
+        }
+    }
+}
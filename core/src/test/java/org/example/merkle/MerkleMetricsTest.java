@@ -0,0 +1,120 @@
+package org.example.merkle;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.example.merkle.jfr.JfrMerkleMetrics;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * MerkleMetricsTest
+ */
+public class MerkleMetricsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        MerkleTree.setDefaultMetrics(null);
+    }
+
+    @Test
+    public void testInMemoryMetrics_Counts() throws Exception {
+        InMemoryMerkleMetrics metrics = new InMemoryMerkleMetrics();
+        MerkleTree.setDefaultMetrics(metrics);
+        HashStrategy strategy = MeteredHashStrategy.wrap(SM3Strategy.newInstance(), metrics);
+        MerkleTree tree = MerkleTree.newTree(contents(100), strategy, false);
+
+        // 100 个叶子各层节点数：100, 50, 25, 13, 7, 4, 2, 1
+        assertEquals(100 + 102, metrics.getNodesAllocated());
+        assertEquals(102, metrics.getHashInvocations());
+        assertEquals(102 * 64, metrics.getBytesHashed());
+        assertEquals(1, metrics.getHistogram(MerkleMetrics.Operation.BUILD_TREE).getCount());
+        for (int level = 0; level < 8; level++) {
+            assertNotNull(metrics.getLevelHistogram(level));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            tree.getMerklePath(i);
+            assertTrue(tree.verifyContent(i));
+        }
+        assertTrue(tree.verifyTree());
+        assertEquals(10, metrics.getHistogram(MerkleMetrics.Operation.GET_MERKLE_PATH).getCount());
+        assertEquals(10, metrics.getHistogram(MerkleMetrics.Operation.VERIFY_CONTENT).getCount());
+        assertEquals(1, metrics.getHistogram(MerkleMetrics.Operation.VERIFY_TREE).getCount());
+        InMemoryMerkleMetrics.Histogram build = metrics.getHistogram(MerkleMetrics.Operation.BUILD_TREE);
+        assertTrue(build.getPercentileNanos(50) <= build.getMaxNanos());
+        assertTrue(build.getPercentileNanos(99) >= build.getMinNanos());
+
+        assertSame(metrics, MerkleTree.newTree(contents(2), strategy, false).getMetrics());
+        MerkleTree.setDefaultMetrics(null);
+        HashStrategy plain = SM3Strategy.newInstance();
+        assertSame(plain, MeteredHashStrategy.wrap(plain, MerkleMetrics.NOOP));
+        assertSame(MerkleMetrics.NOOP, MerkleTree.newTree(contents(2), plain, false).getMetrics());
+    }
+
+    @Test
+    public void testMeteredHash_SumDoesNotRecount() throws Exception {
+        InMemoryMerkleMetrics metrics = new InMemoryMerkleMetrics();
+        Hash hash = MeteredHashStrategy.wrap(SM3Strategy.newInstance(), metrics).createHash();
+        hash.write(new byte[10]);
+        hash.sum(null);
+        hash.sum(null);
+        hash.write(new byte[5]);
+        hash.doFinal(new byte[hash.size()], 0);
+        assertEquals(3, metrics.getHashInvocations());
+        assertEquals(15, metrics.getBytesHashed());
+
+        hash.write(new byte[7]);
+        hash.sum(null);
+        hash.reset();
+        hash.write(new byte[2]);
+        hash.doFinal(new byte[hash.size()], 0);
+        assertEquals(5, metrics.getHashInvocations());
+        assertEquals(24, metrics.getBytesHashed());
+    }
+
+    @Test
+    public void testJfrMetrics_Events() throws Exception {
+        Path dump = folder.newFile("merkle.jfr").toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable("org.example.merkle.Operation");
+            recording.enable("org.example.merkle.Level");
+            recording.start();
+            InMemoryMerkleMetrics counts = new InMemoryMerkleMetrics();
+            MerkleTree.setDefaultMetrics(new JfrMerkleMetrics(counts));
+            MerkleTree tree = MerkleTree.newTree(contents(16), SM3Strategy.newInstance(), true);
+            assertTrue(tree.verifyTree());
+            recording.stop();
+            recording.dump(dump);
+            assertEquals(16 + 15, counts.getNodesAllocated());
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        int operations = 0;
+        int levels = 0;
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals("org.example.merkle.Operation")) {
+                operations++;
+                assertEquals(16, event.getInt("leafCount"));
+            } else if (event.getEventType().getName().equals("org.example.merkle.Level")) {
+                levels++;
+            }
+        }
+        assertEquals(2, operations);
+        assertEquals(5, levels);
+    }
+}
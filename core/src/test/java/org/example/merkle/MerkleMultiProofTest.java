@@ -0,0 +1,41 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.example.merkle.MerkleTestSupport.range;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * MerkleMultiProofTest
+ */
+public class MerkleMultiProofTest {
+    @Test
+    public void testMerkleTree_MultiProof() throws Exception {
+        for (boolean sort : new boolean[]{false, true}) {
+            for (int size : new int[]{1, 2, 3, 7, 16, 21}) {
+                List<Content> contents = contents(size);
+                MerkleTree tree = MerkleTree.newTree(contents, SM3Strategy.newInstance(), sort);
+                int[][] selections = {{0}, {size - 1}, {0, size - 1}, {size / 2, 0, size / 2, size - 1}, range(size)};
+                for (int[] selection : selections) {
+                    MerkleMultiProof proof = tree.getMultiProof(selection);
+                    assertTrue("size " + size, proof.verify(tree.getMerkleRoot(), SM3Strategy.newInstance(), sort));
+                    assertFalse(proof.verify(contents.get(0).calculateHash(), SM3Strategy.newInstance(), sort));
+                }
+                // 全部叶子时不需要任何兄弟哈希（奇数叶子的重复节点除外）
+                assertTrue(tree.getMultiProof(range(size)).getProof().size() <= tree.getCompactTree().getLevelCount());
+            }
+        }
+        List<Content> contents = contents(4);
+        MerkleTree tree = MerkleTree.newTree(contents, SM3Strategy.newInstance(), false);
+        assertTrue(tree.getMultiProof(contents.subList(1, 3)).verify(tree.getMerkleRoot(), SM3Strategy.newInstance(), false));
+        assertNull(tree.getMultiProof(Arrays.<Content>asList(new SM3Content("fake content"))));
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.example.merkle.MerkleTestSupport.assertPathEquals;
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.example.merkle.MerkleTestSupport.referencePath;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * MerkleProofCacheTest
+ */
+public class MerkleProofCacheTest {
+    @Test
+    public void testMerkleTree_ProofCache() throws Exception {
+        List<Content> contents = contents(16);
+        MerkleTree tree = MerkleTree.newTree(contents, SM3Strategy.newInstance(), false);
+        MerkleProofCache cache = tree.enableProofCache(4);
+        for (int i = 0; i < 6; i++) {
+            assertPathEquals(referencePath(tree, i), tree.getMerklePath(i));
+        }
+        assertEquals(6, cache.getMisses());
+        assertEquals(2, cache.getEvictions());
+        assertFalse(cache.contains(0));
+        assertTrue(cache.contains(5));
+        tree.getMerklePath(contents.get(5));
+        tree.getMerklePath(3);
+        assertEquals(2, cache.getHits());
+
+        // 命中时返回共享的不可变路径，不做拷贝
+        MerklePathResult returned = tree.getMerklePath(5);
+        assertSame(returned, tree.getMerklePath(5));
+        assertEquals(4, cache.getHits());
+        try {
+            returned.getIndex().set(0, 1 - returned.getIndex().get(0));
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        // 单个叶子更新后只有它自己的路径仍然有效
+        tree.updateLeaf(3, new SM3Content("updated-3"));
+        assertEquals(1, cache.size());
+        assertTrue(cache.contains(3));
+        for (int i = 0; i < 16; i++) {
+            assertPathEquals(referencePath(tree, i), tree.getMerklePath(i));
+        }
+
+        // 奇数个叶子时最后一个叶子与自身的副本配对，更新后自己的路径也会变化
+        MerkleTree odd = MerkleTree.newTree(contents(5), SM3Strategy.newInstance(), false);
+        MerkleProofCache oddCache = odd.enableProofCache(8);
+        odd.getMerklePath(4);
+        odd.getMerklePath(1);
+        odd.updateLeaf(4, new SM3Content("updated-4"));
+        assertEquals(0, oddCache.size());
+        assertPathEquals(referencePath(odd, 4), odd.getMerklePath(4));
+
+        tree.rebuildTree(contents(7));
+        assertEquals(0, cache.size());
+        assertPathEquals(referencePath(tree, 6), tree.getMerklePath(6));
+    }
+}
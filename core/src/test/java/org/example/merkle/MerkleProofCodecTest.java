@@ -0,0 +1,64 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.example.merkle.MerkleTestSupport.assertPathEquals;
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * MerkleProofCodecTest
+ */
+public class MerkleProofCodecTest {
+    @Test
+    public void testMerkleProofCodec() throws Exception {
+        SM3Strategy strategy = SM3Strategy.newInstance();
+        for (boolean sort : new boolean[]{false, true}) {
+            List<Content> contents = contents(13);
+            MerkleTree tree = MerkleTree.newTree(contents, strategy, sort);
+            byte[] root = tree.getMerkleRoot();
+            for (int i = 0; i < contents.size(); i++) {
+                MerklePathResult path = tree.getMerklePath(i);
+                int length = MerkleProofCodec.encodedLength(path.getMerklePath().size(), 32);
+                ByteBuffer heap = ByteBuffer.allocate(length + 3);
+                heap.position(3);
+                MerkleProofCodec.encode(path, heap);
+                assertFalse(heap.hasRemaining());
+
+                ByteBuffer direct = ByteBuffer.allocateDirect(length);
+                MerkleProofCodec.encode(tree.getCompactTree(), i, direct);
+                direct.flip();
+                heap.position(3);
+                assertEquals(heap, direct);
+
+                byte[] leafHash = contents.get(i).calculateHash();
+                assertTrue(MerkleProofCodec.verify(heap, root, leafHash, strategy, sort));
+                assertTrue(MerkleProofCodec.verify(direct, root, leafHash, strategy, sort));
+                assertEquals(3, heap.position());
+                assertPathEquals(path, MerkleProofCodec.decode(heap));
+                assertEquals(heap.limit(), heap.position());
+
+                heap.position(3);
+                assertFalse(MerkleProofCodec.verify(heap, root, contents.get((i + 1) % 13).calculateHash(),
+                        strategy, sort));
+                heap.put(heap.limit() - 1, (byte) (heap.get(heap.limit() - 1) ^ 1));
+                assertFalse(MerkleProofCodec.verify(heap, root, leafHash, strategy, sort));
+                heap.limit(heap.limit() - 1);
+                assertFalse(MerkleProofCodec.verify(heap, root, leafHash, strategy, sort));
+            }
+        }
+        try {
+            MerkleProofCodec.encode(MerkleTree.newTree(contents(4), strategy, false).getMerklePath(0),
+                    ByteBuffer.allocate(8));
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * MerkleProofVerifierTest
+ */
+public class MerkleProofVerifierTest {
+    @Test
+    public void testMerkleProofVerifier() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (boolean sort : new boolean[]{false, true}) {
+                List<Content> contents = contents(2000);
+                MerkleTree tree = MerkleTree.newTree(contents, SM3Strategy.newInstance(), sort);
+                List<byte[]> leafHashes = new ArrayList<>();
+                List<MerklePathResult> paths = new ArrayList<>();
+                for (int i = 0; i < contents.size(); i++) {
+                    leafHashes.add(contents.get(i).calculateHash());
+                    paths.add(tree.getMerklePath(i));
+                }
+                assertTrue(MerkleProofVerifier.verify(tree.getMerkleRoot(), contents.get(5), paths.get(5),
+                        SM3Strategy.newInstance(), sort));
+                assertFalse(MerkleProofVerifier.verify(tree.getMerkleRoot(), contents.get(5), paths.get(6),
+                        SM3Strategy.newInstance(), sort));
+
+                leafHashes.set(7, leafHashes.get(8));
+                boolean[] results = MerkleProofVerifier.verifyAll(tree.getMerkleRoot(), leafHashes, paths,
+                        SM3Strategy.newInstance(), sort, pool);
+                for (int i = 0; i < results.length; i++) {
+                    assertEquals("leaf " + i, i != 7, results[i]);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
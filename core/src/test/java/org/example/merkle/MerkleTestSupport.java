@@ -0,0 +1,88 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * MerkleTestSupport 测试共用的内容生成、路径比较与参照实现
+ */
+final class MerkleTestSupport {
+    private MerkleTestSupport() {
+    }
+
+    static int[] range(int size) {
+        int[] indices = new int[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    static List<Content> contents(int size) {
+        List<Content> contents = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            contents.add(new SM3Content("content-" + i));
+        }
+        return contents;
+    }
+
+    static void assertPathEquals(MerklePathResult expected, MerklePathResult actual) {
+        assertEquals(expected.getIndex(), actual.getIndex());
+        assertEquals(expected.getMerklePath().size(), actual.getMerklePath().size());
+        for (int j = 0; j < expected.getMerklePath().size(); j++) {
+            assertArrayEquals(expected.getMerklePath().get(j), actual.getMerklePath().get(j));
+        }
+    }
+
+    /**
+     * referencePath 沿 Node 的父指针求路径，用于校验按下标运算得到的路径
+     */
+    static MerklePathResult referencePath(MerkleTree tree, int index) {
+        Node current = tree.getLeafs().get(index);
+        List<byte[]> merklePath = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (Node parent = current.getParent(); parent != null; current = parent, parent = parent.getParent()) {
+            boolean isLeft = parent.getLeft() == current;
+            merklePath.add(isLeft ? parent.getRight().getHash() : parent.getLeft().getHash());
+            indexes.add(isLeft ? 1 : 0);
+        }
+        return new MerklePathResult(merklePath, indexes);
+    }
+
+    /**
+     * referenceRoot 按最初的逐层 Node 构建算法计算默克尔根，用于校验其它构建方式
+     */
+    static byte[] referenceRoot(List<Content> contents, boolean sort) throws Exception {
+        return referenceRoot(contents, sort, SM3Strategy.newInstance());
+    }
+
+    static byte[] referenceRoot(List<Content> contents, boolean sort, HashStrategy strategy) throws Exception {
+        MerkleTree helper = MerkleTree.newTree(contents.subList(0, 1), strategy, sort);
+        List<byte[]> level = new ArrayList<>();
+        for (Content content : contents) {
+            level.add(content.calculateHash());
+        }
+        if (level.size() % 2 == 1) {
+            level.add(level.get(level.size() - 1));
+        }
+        while (true) {
+            List<byte[]> next = new ArrayList<>();
+            for (int i = 0; i < level.size(); i += 2) {
+                int right = i + 1 < level.size() ? i + 1 : i;
+                Hash hash = strategy.createHash();
+                hash.write(helper.sortAppend(sort, level.get(i), level.get(right)));
+                next.add(hash.sum(null));
+            }
+            if (next.size() == 1) {
+                return next.get(0);
+            }
+            level = next;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * MerkleTreeDiffTest
+ */
+public class MerkleTreeDiffTest {
+
+    @Test
+    public void testMerkleTreeDiff_SameSize() throws Exception {
+        for (boolean sort : new boolean[]{false, true}) {
+            List<Content> contents = contents(37);
+            MerkleTree local = MerkleTree.newTree(contents, SM3Strategy.newInstance(), sort);
+            MerkleTree remote = MerkleTree.newCompactTree(contents, SM3Strategy.newInstance(), sort);
+            assertEquals(Collections.emptyList(), MerkleTreeDiff.diff(local, remote));
+
+            remote.updateLeaf(3, new SM3Content("changed-3"));
+            remote.updateLeaf(4, new SM3Content("changed-4"));
+            remote.updateLeaf(36, new SM3Content("changed-36"));
+            assertEquals(Arrays.asList(new LeafRange(3, 5), new LeafRange(36, 37)), MerkleTreeDiff.diff(local, remote));
+        }
+    }
+
+    @Test
+    public void testMerkleTreeDiff_DifferentSize() throws Exception {
+        List<Content> contents = contents(20);
+        MerkleTree local = MerkleTree.newTree(contents.subList(0, 13), SM3Strategy.newInstance(), false);
+        MerkleTree remote = MerkleTree.newTree(contents, SM3Strategy.newInstance(), false);
+        assertEquals(Collections.singletonList(new LeafRange(13, 20)), MerkleTreeDiff.diff(local, remote));
+        assertEquals(Collections.singletonList(new LeafRange(13, 20)), MerkleTreeDiff.diff(remote, local));
+
+        remote.updateLeaf(0, new SM3Content("changed-0"));
+        assertEquals(Arrays.asList(new LeafRange(0, 1), new LeafRange(13, 20)), MerkleTreeDiff.diff(local, remote));
+    }
+
+    @Test
+    public void testMerkleTreeDiff_Loopback() throws Exception {
+        List<Content> contents = contents(4096);
+        MerkleTree local = MerkleTree.newCompactTree(contents, SM3Strategy.newInstance(), true);
+        MerkleTree remote = MerkleTree.newCompactTree(contents, SM3Strategy.newInstance(), true);
+        remote.updateLeaf(1000, new SM3Content("changed"));
+
+        try (MerkleSyncServer server = MerkleSyncServer.start(remote, 0);
+             RemoteSyncPeer peer = RemoteSyncPeer.connect("127.0.0.1", server.getPort())) {
+            assertEquals(Collections.singletonList(new LeafRange(1000, 1001)), MerkleTreeDiff.diff(local, peer));
+            // 只传输了根到该叶子路径附近的哈希，远少于整棵树
+            assertTrue(peer.getBytesReceived() < 64 * 36);
+        }
+    }
+
+    @Test
+    public void testMerkleSyncServer_RejectsOversizedRequest() throws Exception {
+        MerkleTree remote = MerkleTree.newCompactTree(contents(16), SM3Strategy.newInstance(), true);
+        try (MerkleSyncServer server = MerkleSyncServer.start(remote, 0, 2)) {
+            try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                out.writeByte(MerkleSyncServer.OP_HASHES);
+                out.writeInt(0);
+                out.writeInt(Integer.MAX_VALUE);
+                out.flush();
+                // 服务端不分配数组而是直接断开连接
+                assertEquals(-1, socket.getInputStream().read());
+            }
+            // 只断开不合法的连接，服务器仍可正常服务
+            try (RemoteSyncPeer peer = RemoteSyncPeer.connect("127.0.0.1", server.getPort())) {
+                assertEquals(16, peer.leafCount());
+            }
+        }
+    }
+
+    @Test
+    public void testRemoteSyncPeer_RejectsMalformedResponse() throws Exception {
+        // 对任意哈希请求都应答 n=1、长度为负数的哈希
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread responder = new Thread(() -> {
+                try (Socket socket = server.accept()) {
+                    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                    out.writeInt(1);
+                    out.writeInt(-1);
+                    out.flush();
+                    socket.getInputStream().read(new byte[64]);
+                } catch (IOException e) {
+                    // 客户端断开
+                }
+            });
+            responder.setDaemon(true);
+            responder.start();
+            try (RemoteSyncPeer peer = RemoteSyncPeer.connect("127.0.0.1", server.getLocalPort())) {
+                peer.getHashes(0, new int[]{0});
+                fail();
+            } catch (IOException expected) {
+            }
+        }
+
+        // 应答个数与请求不符时 diff 直接失败，不越界访问
+        MerkleTree local = MerkleTree.newCompactTree(contents(8), SM3Strategy.newInstance(), true);
+        MerkleSyncPeer shortPeer = new MerkleSyncPeer() {
+            @Override
+            public int leafCount() {
+                return 8;
+            }
+
+            @Override
+            public List<byte[]> getHashes(int level, int[] indices) {
+                return Collections.emptyList();
+            }
+        };
+        try {
+            MerkleTreeDiff.diff(local, shortPeer);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.example.merkle;
+
+import org.example.merkle.sha256.SHA256Strategy;
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.example.merkle.MerkleTestSupport.assertPathEquals;
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * MerkleTreeFileTest
+ */
+public class MerkleTreeFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMerkleTreeFile_WriteAndOpen() throws Exception {
+        for (boolean sort : new boolean[]{false, true}) {
+            for (int size : new int[]{1, 2, 7, 100}) {
+                List<Content> contents = contents(size);
+                MerkleTree tree = MerkleTree.newTree(contents, SM3Strategy.newInstance(), sort);
+                Path path = folder.newFile().toPath();
+                MerkleTreeFile.write(tree, path, true);
+
+                try (MappedMerkleTree mapped = MerkleTreeFile.open(path)) {
+                    assertArrayEquals(tree.getMerkleRoot(), mapped.getMerkleRoot());
+                    assertEquals(size, mapped.getLeafCount());
+                    assertEquals(sort, mapped.isSort());
+                    for (int i = 0; i < size; i++) {
+                        byte[] leafHash = contents.get(i).calculateHash();
+                        assertEquals(i, mapped.indexOf(leafHash));
+                        assertPathEquals(tree.getMerklePath(i), mapped.getMerklePath(leafHash));
+                    }
+                    assertEquals(-1, mapped.indexOf(new SM3Content("fake content").calculateHash()));
+                    assertNull(mapped.getMerklePath(new SM3Content("fake content").calculateHash()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMerkleTreeFile_WithoutLeafIndex() throws Exception {
+        MerkleTree tree = MerkleTree.newCompactTree(contents(5), SM3Strategy.newInstance(), false);
+        Path path = folder.newFile().toPath();
+        MerkleTreeFile.write(tree, path, false);
+
+        try (MappedMerkleTree mapped = MerkleTreeFile.open(path)) {
+            assertFalse(mapped.hasLeafIndex());
+            assertTrue(MerkleProofVerifier.verify(mapped.getMerkleRoot(), contents(5).get(4),
+                    mapped.getMerklePath(4), SM3Strategy.newInstance(), false));
+        }
+    }
+
+    @Test
+    public void testMerkleTreeFile_DuplicateLeaves() throws Exception {
+        List<Content> contents = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            contents.add(new SM3Content("content-" + (i % 7)));
+        }
+        MerkleTree tree = MerkleTree.newCompactTree(contents, SM3Strategy.newInstance(), true);
+        Path path = folder.newFile().toPath();
+        MerkleTreeFile.write(tree, path, true);
+
+        try (MappedMerkleTree mapped = MerkleTreeFile.open(path, SM3Strategy.newInstance())) {
+            for (int i = 0; i < 7; i++) {
+                assertEquals(i, mapped.indexOf(contents.get(i).calculateHash()));
+            }
+        }
+    }
+
+    @Test
+    public void testMerkleTreeFile_RejectsMismatchAndCorruption() throws Exception {
+        MerkleTree tree = MerkleTree.newCompactTree(contents(9), SM3Strategy.newInstance(), false);
+        Path path = folder.newFile().toPath();
+        MerkleTreeFile.write(tree, path, true);
+        assertOpenFails(path, SHA256Strategy.newInstance());
+
+        byte[] original = Files.readAllBytes(path);
+        // levelCount 远超文件大小
+        byte[] corrupt = original.clone();
+        ByteBuffer.wrap(corrupt).putInt(16, Integer.MAX_VALUE);
+        Files.write(path, corrupt);
+        assertOpenFails(path, null);
+        // levelCount 为负数
+        ByteBuffer.wrap(corrupt).putInt(16, -1);
+        Files.write(path, corrupt);
+        assertOpenFails(path, null);
+        // 第 0 层偏移超出文件末尾
+        corrupt = original.clone();
+        ByteBuffer.wrap(corrupt).putLong(MerkleTreeFile.HEADER_SIZE + 16, Long.MAX_VALUE - 8);
+        Files.write(path, corrupt);
+        assertOpenFails(path, null);
+        // 截断的文件
+        Files.write(path, Arrays.copyOf(original, original.length - 1));
+        assertOpenFails(path, null);
+    }
+
+    private static void assertOpenFails(Path path, HashStrategy hashStrategy) throws Exception {
+        try (MappedMerkleTree mapped = MerkleTreeFile.open(path, hashStrategy)) {
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testExternalMerkleBuilder() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            for (boolean sort : new boolean[]{false, true}) {
+                for (int size : new int[]{1, 2, 5, 8, 23}) {
+                    List<Content> contents = contents(size);
+                    MerkleTree tree = MerkleTree.newTree(contents, SM3Strategy.newInstance(), sort);
+
+                    ExternalMerkleBuilder builder = ExternalMerkleBuilder.newBuilder(SM3Strategy.newInstance(), sort,
+                            folder.getRoot().toPath());
+                    builder.setBatchSize(3);
+                    Path output = folder.newFile().toPath();
+                    assertArrayEquals(tree.getMerkleRoot(), builder.build(contents.iterator(), output));
+                    try (MappedMerkleTree mapped = MerkleTreeFile.open(output)) {
+                        assertArrayEquals(tree.getMerkleRoot(), mapped.getMerkleRoot());
+                        for (int i = 0; i < size; i++) {
+                            assertPathEquals(tree.getMerklePath(i), mapped.getMerklePath(i));
+                        }
+                    }
+
+                    StringBuilder lines = new StringBuilder();
+                    for (int i = 0; i < size; i++) {
+                        lines.append("content-").append(i).append('\n');
+                    }
+                    builder.setForkJoinPool(pool);
+                    InputStream input = new ByteArrayInputStream(lines.toString().getBytes(StandardCharsets.UTF_8));
+                    assertArrayEquals(tree.getMerkleRoot(),
+                            builder.build(input, SM3Content::new, folder.newFile().toPath()));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        // 临时层文件构建后全部删除，只剩下输出文件
+        File[] remaining = folder.getRoot().listFiles((dir, name) -> name.startsWith("merkle-level-"));
+        assertEquals(0, remaining.length);
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ParallelBuildTest
+ */
+public class ParallelBuildTest {
+    @Test
+    public void testMerkleTree_ParallelBuild() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (boolean sort : new boolean[]{false, true}) {
+                for (int size : new int[]{1, 2, 3, 7, 1000, 5001}) {
+                    List<Content> contents = contents(size);
+                    MerkleTree sequential = MerkleTree.newTree(contents, SM3Strategy.newInstance(), sort);
+                    MerkleTree parallel = MerkleTree.newCompactTree(contents, SM3Strategy.newInstance(), sort, pool);
+                    parallel.setParallelThreshold(1);
+                    parallel.rebuildTree(contents);
+
+                    assertArrayEquals("size " + size, sequential.getMerkleRoot(), parallel.getMerkleRoot());
+                    assertArrayEquals("size " + size, sequential.getMerkleRoot(),
+                            MerkleTree.newTree(contents, SM3Strategy.newInstance(), sort, pool).getMerkleRoot());
+                    assertTrue(parallel.verifyTree());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * RangeProofTest
+ */
+public class RangeProofTest {
+    @Test
+    public void testMerkleTree_RangeProof() throws Exception {
+        SM3Strategy strategy = SM3Strategy.newInstance();
+        for (boolean sort : new boolean[]{false, true}) {
+            for (int size = 1; size <= 17; size++) {
+                List<Content> contents = contents(size);
+                MerkleTree tree = MerkleTree.newTree(contents, strategy, sort);
+                byte[] root = tree.getMerkleRoot();
+                for (int from = 0; from < size; from++) {
+                    for (int to = from + 1; to <= size; to++) {
+                        RangeProof proof = tree.getRangeProof(from, to);
+                        List<Content> span = contents.subList(from, to);
+                        assertTrue(proof.verifyContents(root, span, strategy, sort));
+                        int depth = tree.getCompactTree().getLevelCount() - 1;
+                        assertTrue(proof.getLeftProof().size() <= depth && proof.getRightProof().size() <= depth);
+                        if (to - from > 1) {
+                            assertFalse(proof.verifyContents(root, span.subList(1, span.size()), strategy, sort));
+                        }
+                        List<Content> tampered = new ArrayList<>(span);
+                        tampered.set(tampered.size() - 1, new SM3Content("tampered"));
+                        assertFalse(proof.verifyContents(root, tampered, strategy, sort));
+                    }
+                }
+            }
+        }
+
+        List<Content> contents = contents(13);
+        MerkleTree tree = MerkleTree.newTree(contents, SM3Strategy.newInstance(), false);
+        assertArrayEquals(tree.getMerkleRoot(), tree.getSubtreeRoot(tree.getCompactTree().getLevelCount() - 1, 0));
+        assertArrayEquals(contents.get(5).calculateHash(), tree.getSubtreeRoot(0, 5));
+        // 覆盖叶子 [4, 8) 的子树根等于只由这四个叶子构建的树的根
+        assertArrayEquals(MerkleTree.newTree(contents.subList(4, 8), SM3Strategy.newInstance(), false).getMerkleRoot(),
+                tree.getSubtreeRoot(2, 1));
+        try {
+            tree.getRangeProof(3, 3);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            tree.getSubtreeRoot(2, 4);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+}
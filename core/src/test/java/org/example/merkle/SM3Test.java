@@ -18,7 +18,7 @@ import static org.junit.Assert.assertTrue;
  * SM3Test
  */
 public class SM3Test {
-    private static final List<TestCase> table = Arrays.asList(
+    static final List<TestCase> table = Arrays.asList(
             new TestCase(0,  false, Arrays.asList(
                     new SM3Content("Hello"),
                     new SM3Content("Hi"),
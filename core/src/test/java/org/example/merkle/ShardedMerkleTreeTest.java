@@ -0,0 +1,99 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.example.merkle.MerkleTestSupport.assertPathEquals;
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * ShardedMerkleTreeTest
+ */
+public class ShardedMerkleTreeTest {
+    @Test
+    public void testShardedMerkleTree() throws Exception {
+        SM3Strategy strategy = SM3Strategy.newInstance();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (boolean sort : new boolean[]{false, true}) {
+                for (int shardSize : new int[]{2, 4, 8}) {
+                    for (int size = 1; size <= 27; size++) {
+                        List<Content> contents = contents(size);
+                        ShardedMerkleTree sharded = ShardedMerkleTree.newTree(contents, shardSize, strategy, sort,
+                                size % 2 == 0 ? executor : null);
+                        MerkleTree tree = MerkleTree.newTree(contents, strategy, sort);
+                        assertArrayEquals(tree.getMerkleRoot(), sharded.getMerkleRoot());
+                        for (int i = 0; i < size; i++) {
+                            assertPathEquals(tree.getMerklePath(i), sharded.getMerklePath(i));
+                        }
+                    }
+                }
+            }
+
+            List<Content> contents = contents(21);
+            ShardedMerkleTree sharded = ShardedMerkleTree.newTree(contents, 4, strategy, false, executor);
+            assertEquals(6, sharded.getShardCount());
+            Map<Integer, Content> updates = new HashMap<>();
+            updates.put(1, new SM3Content("updated-1"));
+            updates.put(13, new SM3Content("updated-13"));
+            updates.put(20, new SM3Content("updated-20"));
+            sharded.updateLeaves(updates);
+            for (Map.Entry<Integer, Content> entry : updates.entrySet()) {
+                contents.set(entry.getKey(), entry.getValue());
+            }
+            MerkleTree expected = MerkleTree.newTree(contents, strategy, false);
+            assertArrayEquals(expected.getMerkleRoot(), sharded.getMerkleRoot());
+            assertEquals(13, sharded.indexOf(contents.get(13).calculateHash()));
+            assertPathEquals(expected.getMerklePath(20), sharded.getMerklePath(contents.get(20)));
+
+            List<Content> shard2 = Arrays.asList(new SM3Content("a"), new SM3Content("b"),
+                    new SM3Content("c"), new SM3Content("d"));
+            sharded.rebuildShard(2, shard2);
+            for (int i = 0; i < 4; i++) {
+                contents.set(8 + i, shard2.get(i));
+            }
+            assertArrayEquals(MerkleTree.newTree(contents, strategy, false).getMerkleRoot(), sharded.getMerkleRoot());
+            assertNull(sharded.getMerklePath(new SM3Content("missing")));
+
+            // 一个分片更新失败时，其余分片的更新仍然同步到顶层树，根与路径保持一致
+            for (ExecutorService shardExecutor : new ExecutorService[]{null, executor}) {
+                List<Content> partial = contents(21);
+                ShardedMerkleTree failing = ShardedMerkleTree.newTree(partial, 4, strategy, false, shardExecutor);
+                Map<Integer, Content> failingUpdates = new HashMap<>();
+                failingUpdates.put(2, new SM3Content("updated-2"));
+                failingUpdates.put(9, new SM3Content("updated-9"));
+                failingUpdates.put(17, null);
+                try {
+                    failing.updateLeaves(failingUpdates);
+                    fail();
+                } catch (IllegalArgumentException rejected) {
+                }
+                partial.set(2, failingUpdates.get(2));
+                partial.set(9, failingUpdates.get(9));
+                MerkleTree expectedPartial = MerkleTree.newTree(partial, strategy, false);
+                assertArrayEquals(expectedPartial.getMerkleRoot(), failing.getMerkleRoot());
+                assertPathEquals(expectedPartial.getMerklePath(9), failing.getMerklePath(9));
+                assertPathEquals(expectedPartial.getMerklePath(17), failing.getMerklePath(17));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        try {
+            ShardedMerkleTree.newTree(contents(8), 3, strategy, false);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SparseMerkleTreeTest
+ */
+public class SparseMerkleTreeTest {
+
+    @Test
+    public void testSparseMerkleTree_Proofs() throws Exception {
+        HashStrategy strategy = SM3Strategy.newInstance();
+        SparseMerkleTree tree = SparseMerkleTree.newTree(strategy);
+        byte[] emptyRoot = tree.getRoot();
+        assertArrayEquals(SparseMerkleTree.defaultHashes(strategy)[0], emptyRoot);
+
+        List<Content> contents = contents(50);
+        for (Content content : contents) {
+            tree.put(content.calculateHash(), content);
+        }
+        assertEquals(50, tree.size());
+        byte[] root = tree.getRoot();
+
+        for (Content content : contents) {
+            byte[] key = content.calculateHash();
+            SparseMerkleProof proof = tree.getProof(key);
+            assertTrue(SparseMerkleTree.verifyMembership(root, content.calculateHash(), proof, strategy));
+            assertFalse(SparseMerkleTree.verifyNonMembership(root, proof, strategy));
+            // 50 个键时非空兄弟约为 log2(50) 个，其余由位图表示
+            assertTrue(proof.getSiblings().size() < 16);
+        }
+
+        byte[] absent = new SM3Content("absent").calculateHash();
+        assertNull(tree.get(absent));
+        SparseMerkleProof absentProof = tree.getProof(absent);
+        assertTrue(SparseMerkleTree.verifyNonMembership(root, absentProof, strategy));
+        assertFalse(SparseMerkleTree.verifyMembership(root, absent, absentProof, strategy));
+
+        // 不可信的畸形证明返回 false 而不是抛出异常
+        SparseMerkleProof shortBitmap = new SparseMerkleProof(absent, new byte[3], absentProof.getSiblings());
+        assertFalse(SparseMerkleTree.verifyNonMembership(root, shortBitmap, strategy));
+        SparseMerkleProof badSibling = new SparseMerkleProof(absent, absentProof.getBitmap(),
+                Collections.nCopies(absentProof.getSiblings().size(), new byte[3]));
+        assertFalse(SparseMerkleTree.verifyNonMembership(root, badSibling, strategy));
+    }
+
+    @Test
+    public void testSparseMerkleTree_InsertOrderAndDelete() throws Exception {
+        HashStrategy strategy = SM3Strategy.newInstance();
+        List<Content> contents = contents(20);
+        SparseMerkleTree forward = SparseMerkleTree.newTree(strategy);
+        SparseMerkleTree backward = SparseMerkleTree.newTree(strategy);
+        for (int i = 0; i < contents.size(); i++) {
+            forward.put(contents.get(i).calculateHash(), contents.get(i));
+            Content reversed = contents.get(contents.size() - 1 - i);
+            backward.put(reversed.calculateHash(), reversed);
+        }
+        assertArrayEquals(forward.getRoot(), backward.getRoot());
+
+        for (Content content : contents) {
+            assertTrue(forward.remove(content.calculateHash()));
+        }
+        assertFalse(forward.remove(contents.get(0).calculateHash()));
+        assertEquals(0, forward.size());
+        assertEquals(0, forward.nodeCount());
+        assertArrayEquals(SparseMerkleTree.newTree(strategy).getRoot(), forward.getRoot());
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.example.merkle.MerkleTestSupport.assertPathEquals;
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.example.merkle.MerkleTestSupport.referencePath;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * UpdateLeavesTest
+ */
+public class UpdateLeavesTest {
+    @Test
+    public void testMerkleTree_UpdateLeaves() throws Exception {
+        for (boolean sort : new boolean[]{false, true}) {
+            for (int size : new int[]{1, 2, 3, 5, 8, 13}) {
+                List<Content> contents = contents(size);
+                MerkleTree tree = MerkleTree.newTree(contents, SM3Strategy.newInstance(), sort);
+                MerkleTree compactTree = MerkleTree.newCompactTree(contents, SM3Strategy.newInstance(), sort);
+
+                // 最后一个叶子覆盖奇数个叶子时的重复节点，同时把第 0 个叶子改成与第 1 个重复的内容
+                Map<Integer, Content> updates = new HashMap<>();
+                updates.put(size - 1, new SM3Content("updated-last"));
+                updates.put(0, new SM3Content(size > 2 ? "content-1" : "updated-first"));
+                for (Map.Entry<Integer, Content> entry : updates.entrySet()) {
+                    contents.set(entry.getKey(), entry.getValue());
+                }
+                tree.updateLeaves(updates);
+                compactTree.updateLeaves(updates);
+
+                byte[] expectedRoot = MerkleTree.newTree(contents, SM3Strategy.newInstance(), sort).getMerkleRoot();
+                assertArrayEquals("size " + size, expectedRoot, tree.getMerkleRoot());
+                assertArrayEquals("size " + size, expectedRoot, tree.getRoot().getHash());
+                assertArrayEquals("size " + size, expectedRoot, compactTree.getMerkleRoot());
+                assertTrue(tree.verifyTree());
+                assertTrue(compactTree.verifyTree());
+                for (int i = 0; i < size; i++) {
+                    assertTrue(tree.verifyContent(contents.get(i)));
+                    assertTrue(compactTree.verifyContent(contents.get(i)));
+                }
+                if (size > 2) {
+                    byte[] duplicated = contents.get(1).calculateHash();
+                    assertEquals(0, tree.indexOf(duplicated));
+                    tree.updateLeaf(0, new SM3Content("content-0"));
+                    assertEquals(1, tree.indexOf(duplicated));
+                    // Node 直接读取层数组，更新后无需单独同步哈希
+                    assertArrayEquals(tree.getMerkleRoot(), tree.getRoot().getHash());
+                    assertPathEquals(referencePath(tree, 0), tree.getMerklePath(0));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMerkleTree_UpdateLeavesFailure() throws Exception {
+        for (boolean compact : new boolean[]{false, true}) {
+            List<Content> contents = contents(9);
+            MerkleTree tree = compact
+                    ? MerkleTree.newCompactTree(contents, SM3Strategy.newInstance(), false)
+                    : MerkleTree.newTree(contents, SM3Strategy.newInstance(), false);
+            byte[] root = tree.getMerkleRoot();
+            Content failing = new Content() {
+                @Override
+                public byte[] calculateHash() throws Exception {
+                    throw new IllegalStateException("hash failed");
+                }
+
+                @Override
+                public boolean equals(Content other) {
+                    return false;
+                }
+            };
+
+            // 第 8 个叶子排在后面，失败前第 0 个叶子的新哈希已经计算过，但树不能被修改
+            Map<Integer, Content> updates = new HashMap<>();
+            updates.put(0, new SM3Content("updated-0"));
+            updates.put(8, failing);
+            try {
+                tree.updateLeaves(updates);
+                fail();
+            } catch (IllegalStateException expected) {
+            }
+            updates.put(8, null);
+            try {
+                tree.updateLeaves(updates);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+            updates.remove(8);
+            updates.put(null, new SM3Content("updated-null"));
+            try {
+                tree.updateLeaves(updates);
+                fail();
+            } catch (IndexOutOfBoundsException expected) {
+            }
+
+            assertArrayEquals(root, tree.getMerkleRoot());
+            assertEquals(0, tree.indexOf(contents.get(0).calculateHash()));
+            assertEquals(-1, tree.indexOf(new SM3Content("updated-0").calculateHash()));
+            assertTrue(tree.verifyTree());
+            assertTrue(tree.verifyContent(contents.get(0)));
+        }
+    }
+}
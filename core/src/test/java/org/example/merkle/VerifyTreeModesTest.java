@@ -0,0 +1,68 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * VerifyTreeModesTest
+ */
+public class VerifyTreeModesTest {
+    @Test
+    public void testMerkleTree_VerifyTreeModes() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (boolean compact : new boolean[]{false, true}) {
+                List<Content> contents = contents(1001);
+                MerkleTree tree = compact
+                        ? MerkleTree.newCompactTree(contents, SM3Strategy.newInstance(), false, pool)
+                        : MerkleTree.newTree(contents, SM3Strategy.newInstance(), false, pool);
+                tree.setParallelThreshold(16);
+                assertTrue(tree.verifyTree(false).isValid());
+
+                // 修改内容而不更新树：只有重新计算叶子哈希时才能发现
+                ((SM3Content) contents.get(600)).setContent("tampered");
+                assertTrue(tree.verifyTree(true).isValid());
+                TreeVerifyResult leafFailure = tree.verifyTree(false);
+                assertEquals(0, leafFailure.getLevel());
+                assertEquals(600, leafFailure.getIndex());
+                tree.updateLeaf(600, new SM3Content("content-600"));
+
+                byte[] level3 = tree.getCompactTree().levelData(3);
+                level3[70 * 32] ^= 1;
+                TreeVerifyResult nodeFailure = tree.verifyTree(true);
+                assertEquals(3, nodeFailure.getLevel());
+                assertEquals(70, nodeFailure.getIndex());
+                level3[70 * 32] ^= 1;
+
+                // 增量校验只覆盖被修改叶子的路径
+                tree.updateLeaf(3, new SM3Content("updated-3"));
+                tree.updateLeaf(1000, new SM3Content("updated-1000"));
+                assertEquals(3, tree.getDirtyCount());
+                byte[] level1 = tree.getCompactTree().levelData(1);
+                level1[200 * 32] ^= 1;
+                assertTrue(tree.verifyDirty(false).isValid());
+                assertEquals(0, tree.getDirtyCount());
+                assertFalse(tree.verifyTree(true).isValid());
+                level1[200 * 32] ^= 1;
+
+                tree.updateLeaf(7, new SM3Content("updated-7"));
+                level3[0] ^= 1;
+                TreeVerifyResult dirtyFailure = tree.verifyDirty(true);
+                assertEquals(3, dirtyFailure.getLevel());
+                assertEquals(0, dirtyFailure.getIndex());
+                assertEquals(1, tree.getDirtyCount());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.merkle;
+
+import org.example.merkle.sm3.SM3Content;
+import org.example.merkle.sm3.SM3Strategy;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.example.merkle.MerkleTestSupport.assertPathEquals;
+import static org.example.merkle.MerkleTestSupport.contents;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * VersionedMerkleTreeTest
+ */
+public class VersionedMerkleTreeTest {
+
+    @Test
+    public void testVersionedMerkleTree_MatchesRebuild() throws Exception {
+        HashStrategy strategy = SM3Strategy.newInstance();
+        for (boolean sort : new boolean[]{false, true}) {
+            for (int size = 1; size <= 13; size++) {
+                List<Content> contents = contents(size);
+                VersionedMerkleTree versioned = VersionedMerkleTree.newTree(contents, strategy, sort);
+                MerkleTree tree = MerkleTree.newTree(contents, strategy, sort);
+                assertArrayEquals(tree.getMerkleRoot(), versioned.latest().getMerkleRoot());
+
+                Map<Integer, Content> updates = new HashMap<>();
+                updates.put(0, new SM3Content("updated-0"));
+                updates.put(size - 1, new SM3Content("updated-last"));
+                MerkleTreeVersion next = versioned.update(updates);
+                for (Map.Entry<Integer, Content> entry : updates.entrySet()) {
+                    contents.set(entry.getKey(), entry.getValue());
+                }
+                MerkleTree rebuilt = MerkleTree.newTree(contents, strategy, sort);
+                assertArrayEquals(rebuilt.getMerkleRoot(), next.getMerkleRoot());
+                for (int i = 0; i < size; i++) {
+                    assertPathEquals(rebuilt.getMerklePath(i), next.getMerklePath(i));
+                }
+                // 旧版本不受影响
+                assertArrayEquals(tree.getMerkleRoot(), versioned.getMerkleRoot(0));
+                assertPathEquals(tree.getMerklePath(size - 1), versioned.getMerklePath(0, size - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testVersionedMerkleTree_SharingAndRetention() throws Exception {
+        VersionedMerkleTree versioned = VersionedMerkleTree.newTree(contents(16), SM3Strategy.newInstance(), false);
+        MerkleTreeVersion v0 = versioned.latest();
+        MerkleTreeVersion v1 = versioned.updateLeaf(0, new SM3Content("updated"));
+        assertEquals(1, v1.getVersion());
+        // 只有左半边被复制，右半子树原样共享
+        assertSame(v0.getRootNode().right, v1.getRootNode().right);
+        assertTrue(v0.getRootNode().left != v1.getRootNode().left);
+
+        versioned.updateLeaf(1, new SM3Content("updated-1"));
+        versioned.updateLeaf(2, new SM3Content("updated-2"));
+        assertEquals(4, versioned.getVersions().size());
+        assertEquals(2, versioned.dropVersionsBefore(2));
+        assertNull(versioned.getMerkleRoot(0));
+        assertNull(versioned.getVersion(1));
+        versioned.setMaxVersions(1);
+        assertEquals(1, versioned.getVersions().size());
+        assertEquals(3, versioned.latest().getVersion());
+    }
+
+    @Test
+    public void testPersistentLeafIndex() {
+        // {0, 31} 与 {1, 0} 的 Arrays.hashCode 相同，会进入冲突节点
+        byte[] a = {0, 31};
+        byte[] b = {1, 0};
+        PersistentLeafIndex index = PersistentLeafIndex.EMPTY.add(a, 5).add(b, 2).add(a, 1);
+        assertEquals(1, index.first(a));
+        assertEquals(2, index.first(b));
+        PersistentLeafIndex removed = index.remove(a, 1).remove(b, 2);
+        assertEquals(5, removed.first(a));
+        assertEquals(-1, removed.first(b));
+        assertEquals(2, index.first(b));
+
+        Random random = new Random(7);
+        int[] values = new int[3000];
+        PersistentLeafIndex large = PersistentLeafIndex.EMPTY;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(1000);
+            large = large.add(key(values[i]), i);
+        }
+        for (int round = 0; round < 3000; round++) {
+            int i = random.nextInt(values.length);
+            large = large.remove(key(values[i]), i);
+            values[i] = random.nextInt(1000);
+            large = large.add(key(values[i]), i);
+        }
+        for (int value = 0; value < 1000; value++) {
+            int expected = -1;
+            for (int i = 0; i < values.length && expected < 0; i++) {
+                if (values[i] == value) {
+                    expected = i;
+                }
+            }
+            assertEquals(expected, large.first(key(value)));
+        }
+    }
+
+    private static byte[] key(int value) {
+        return new byte[]{(byte) (value >> 8), (byte) value};
+    }
+}